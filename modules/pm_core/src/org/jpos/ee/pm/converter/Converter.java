@@ -52,6 +52,7 @@ public class Converter extends PMCoreObject {
     private String operations;
     private Properties properties;
     private Boolean validate;
+    private transient volatile ConverterConfig config;
 
     /**This method transforms the given value into an object to visualize it
      * @param ctx The context.
@@ -87,14 +88,7 @@ public class Converter extends PMCoreObject {
      * @param def Default value
      * @return Property value only if its a string */
     public String getConfig(String name, String def) {
-        debug("Converter.getConfig(" + name + "," + def + ")");
-        if (properties != null) {
-            Object obj = properties.get(name);
-            if (obj instanceof String) {
-                return obj.toString();
-            }
-        }
-        return def;
+        return getConverterConfig().get(name, def);
     }
 
     /**Getter for any property in the properties object
@@ -104,6 +98,25 @@ public class Converter extends PMCoreObject {
         return getConfig(name, null);
     }
 
+    /**Turns the properties into the typed configuration. Called once after
+     * the converter is parsed, and on demand if it was not. Subclasses that
+     * precompute something from their properties override it and call super.
+     */
+    public void compile() {
+        config = new ConverterConfig(properties);
+    }
+
+    /**Getter for the compiled configuration
+     * @return The typed configuration of this converter */
+    public ConverterConfig getConverterConfig() {
+        ConverterConfig c = config;
+        if (c == null) {
+            compile();
+            c = config;
+        }
+        return c;
+    }
+
     /**Getter for the value
      * @param einstance The entity instance
      * @param field The field
@@ -143,6 +156,7 @@ public class Converter extends PMCoreObject {
      */
     public void setProperties(Properties properties) {
         this.properties = properties;
+        this.config = null;
     }
 
     /**
@@ -169,31 +183,23 @@ public class Converter extends PMCoreObject {
      * @throws ConverterException when an exception occurs trying to convert.
      */
     public String visualize(Object obj, String extra) throws ConverterException {
-        Integer pad = 0;
-        String padc = getConfig("pad-count", "0");
-        try {
-            pad = Integer.parseInt(padc);
-        } catch (Exception e) {
-        }
-        char padch = getConfig("pad-char", " ").charAt(0);
-        String padd = getConfig("pad-direction", "left");
-
-        String prefix = getConfig("prefix");
-        String suffix = getConfig("suffix");
+        final ConverterConfig cfg = getConverterConfig();
         String res = obj != null ? obj.toString() : "";
-        try {
-            if (padd.compareToIgnoreCase("left") == 0) {
-                res = ISOUtil.padleft(res, pad, padch);
-            } else {
-                res = ISOUtil.padright(res, pad, padch);
+        if (cfg.getPadCount() > 0) {
+            try {
+                if (cfg.isPadLeft()) {
+                    res = ISOUtil.padleft(res, cfg.getPadCount(), cfg.getPadChar());
+                } else {
+                    res = ISOUtil.padright(res, cfg.getPadCount(), cfg.getPadChar());
+                }
+            } catch (ISOException e) {
             }
-        } catch (ISOException e) {
         }
-        if (prefix != null) {
-            res = prefix + res;
+        if (cfg.getPrefix() != null) {
+            res = cfg.getPrefix() + res;
         }
-        if (suffix != null) {
-            res = res + suffix;
+        if (cfg.getSuffix() != null) {
+            res = res + cfg.getSuffix();
         }
         return res;
     }
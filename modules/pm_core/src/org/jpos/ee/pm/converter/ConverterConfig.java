@@ -0,0 +1,136 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.converter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable, typed view of a converter properties. It is built once when the
+ * converter is compiled so visualization does not parse the same strings on
+ * every cell.
+ *
+ * @author jpaoletti
+ */
+public final class ConverterConfig {
+
+    /**A configuration without properties*/
+    public static final ConverterConfig EMPTY = new ConverterConfig(null);
+    private final Map<String, String> values;
+    private final int padCount;
+    private final char padChar;
+    private final boolean padLeft;
+    private final String prefix;
+    private final String suffix;
+
+    /**
+     * Build the configuration from the given properties. Only string values
+     * are kept, as {@link Converter#getConfig(String, String)} always did.
+     * @param properties The converter properties, may be null
+     */
+    public ConverterConfig(Properties properties) {
+        final Map<String, String> m = new HashMap<String, String>();
+        if (properties != null) {
+            for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+                if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+                    m.put((String) entry.getKey(), (String) entry.getValue());
+                }
+            }
+        }
+        this.values = Collections.unmodifiableMap(m);
+        this.padCount = getInt("pad-count", 0);
+        final String pc = get("pad-char", " ");
+        this.padChar = pc.length() > 0 ? pc.charAt(0) : ' ';
+        this.padLeft = get("pad-direction", "left").compareToIgnoreCase("left") == 0;
+        this.prefix = get("prefix");
+        this.suffix = get("suffix");
+    }
+
+    /**
+     * @param name Property name
+     * @param def Default value
+     * @return The property value or def if it is not defined
+     */
+    public String get(String name, String def) {
+        final String v = values.get(name);
+        return (v == null) ? def : v;
+    }
+
+    /**
+     * @param name Property name
+     * @return The property value or null
+     */
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    /**
+     * @param name Property name
+     * @param def Default value
+     * @return The property as an integer or def if it is not defined or is not a number
+     */
+    public int getInt(String name, int def) {
+        final String v = values.get(name);
+        if (v != null) {
+            try {
+                return Integer.parseInt(v.trim());
+            } catch (NumberFormatException e) {
+            }
+        }
+        return def;
+    }
+
+    /**
+     * @param name Property name
+     * @param def Default value
+     * @return The property as a boolean or def if it is not defined
+     */
+    public boolean getBoolean(String name, boolean def) {
+        final String v = values.get(name);
+        return (v == null) ? def : Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * @return All the string properties
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public int getPadCount() {
+        return padCount;
+    }
+
+    public char getPadChar() {
+        return padChar;
+    }
+
+    public boolean isPadLeft() {
+        return padLeft;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+}
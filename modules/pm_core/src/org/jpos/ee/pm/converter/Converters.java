@@ -18,14 +18,22 @@
 package org.jpos.ee.pm.converter;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.jpos.ee.pm.core.PMCoreObject;
 import org.jpos.ee.pm.core.PresentationManager;
 
-/**Collection of converters*/
+/**Collection of converters.
+ * The converter of each operation is resolved once and kept in a dispatch
+ * table, so later lookups are a single map access. The table is rebuilt
+ * when external converters are reloaded.*/
 public class Converters extends PMCoreObject {
 
+    /**Marks operations without converter in the dispatch table*/
+    private static final Converter NONE = new Converter();
     private List<Converter> converters;
     private List<ExternalConverter> externalConverters;
+    private transient volatile Table table;
 
     /**
      * Looks for an aproppiate converter for the given operation id.
@@ -33,6 +41,68 @@ public class Converters extends PMCoreObject {
      * @return The first converter that matches this operation.
      */
     public Converter getConverterForOperation(String operId) {
+        if (operId == null) {
+            return null;
+        }
+        final ConcurrentMap<String, Converter> t = getTable().converters;
+        Converter c = t.get(operId);
+        if (c == null) {
+            c = resolve(operId);
+            t.put(operId, (c == null) ? NONE : c);
+        }
+        return (c == NONE) ? null : c;
+    }
+
+    /**
+     * Resolve the converters of the given operations into the dispatch table
+     * @param operIds Operation ids
+     */
+    public void resolve(Iterable<String> operIds) {
+        for (String operId : operIds) {
+            getConverterForOperation(operId);
+        }
+    }
+
+    /**
+     * Compile the configuration of the defined converters
+     */
+    public void compile() {
+        if (getConverters() != null) {
+            for (Converter converter : getConverters()) {
+                converter.compile();
+            }
+        }
+    }
+
+    private Table getTable() {
+        final int version = PresentationManager.getPm() == null ? 0 : PresentationManager.getPm().getExternalConvertersVersion();
+        Table t = table;
+        if (t == null || t.version != version) {
+            t = new Table(version);
+            table = t;
+        }
+        return t;
+    }
+
+    /**
+     * A dispatch table and the external converters version it was built
+     * for, published together
+     */
+    private static final class Table {
+
+        private final ConcurrentMap<String, Converter> converters = new ConcurrentHashMap<String, Converter>();
+        private final int version;
+
+        Table(int version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Walks the converters looking for the first one that applies to the
+     * given operation.
+     */
+    protected Converter resolve(String operId) {
         if (getConverters() != null) {
             for (Converter converter : getConverters()) {
                 if (check(converter, converter.getOperations(), operId)) {
@@ -43,7 +113,7 @@ public class Converters extends PMCoreObject {
         if (getExternalConverters() != null) {
             for (ExternalConverter ecs : getExternalConverters()) {
                 final Converter c = PresentationManager.getPm().findExternalConverter(ecs.getId());
-                if (check(c, (ecs.getOperations() == null) ? c.getOperations() : ecs.getOperations(), operId)) {
+                if (c != null && check(c, (ecs.getOperations() == null) ? c.getOperations() : ecs.getOperations(), operId)) {
                     //TODO Add override of properties.
                     return c;
                 }
@@ -53,9 +123,28 @@ public class Converters extends PMCoreObject {
     }
 
     protected boolean check(Converter converter, String operations, String operId) {
-        return converter != null
-                && (operations.trim().equalsIgnoreCase("all")
-                || operations.contains(operId));
+        return converter != null && appliesTo(operations, operId);
+    }
+
+    /**
+     * Indicates if an operations string ("all" or a list of operation ids
+     * separated by spaces or commas) includes the given operation. Ids must
+     * match exactly, "edit" does not match "quickedit".
+     *
+     * @param operations The operations string
+     * @param operId The operation id
+     * @return true if the operation is included
+     */
+    public static boolean appliesTo(String operations, String operId) {
+        if (operations == null) {
+            return false;
+        }
+        for (String op : operations.trim().split("[\\s,;|]+")) {
+            if (op.equalsIgnoreCase("all") || op.equals(operId)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public List<ExternalConverter> getExternalConverters() {
@@ -64,6 +153,7 @@ public class Converters extends PMCoreObject {
 
     public void setExternalConverters(List<ExternalConverter> externalConverters) {
         this.externalConverters = externalConverters;
+        this.table = null;
     }
 
     /**
@@ -71,6 +161,7 @@ public class Converters extends PMCoreObject {
      */
     public void setConverters(List<Converter> converters) {
         this.converters = converters;
+        this.table = null;
     }
 
     /**
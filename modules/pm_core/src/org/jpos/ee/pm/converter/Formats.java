@@ -0,0 +1,91 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.converter;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared cache of date and decimal formats, by pattern. Format objects are
+ * not thread safe, so each pattern keeps one instance per thread; the
+ * pattern is parsed only the first time a thread uses it.
+ *
+ * @author jpaoletti
+ */
+public final class Formats {
+
+    private static final ConcurrentMap<String, ThreadLocal<DateFormat>> dateFormats =
+            new ConcurrentHashMap<String, ThreadLocal<DateFormat>>();
+    private static final ConcurrentMap<String, ThreadLocal<NumberFormat>> decimalFormats =
+            new ConcurrentHashMap<String, ThreadLocal<NumberFormat>>();
+
+    private Formats() {
+    }
+
+    /**
+     * Return the date format of the given pattern for the current thread.
+     * The result must not be shared with other threads nor modified.
+     * @param pattern A SimpleDateFormat pattern
+     * @return The format
+     */
+    public static DateFormat getDateFormat(final String pattern) {
+        ThreadLocal<DateFormat> tl = dateFormats.get(pattern);
+        if (tl == null) {
+            tl = new ThreadLocal<DateFormat>() {
+
+                @Override
+                protected DateFormat initialValue() {
+                    return new SimpleDateFormat(pattern);
+                }
+            };
+            final ThreadLocal<DateFormat> prev = dateFormats.putIfAbsent(pattern, tl);
+            if (prev != null) {
+                tl = prev;
+            }
+        }
+        return tl.get();
+    }
+
+    /**
+     * Return the decimal format of the given pattern for the current thread.
+     * The result must not be shared with other threads nor modified.
+     * @param pattern A DecimalFormat pattern
+     * @return The format
+     */
+    public static NumberFormat getDecimalFormat(final String pattern) {
+        ThreadLocal<NumberFormat> tl = decimalFormats.get(pattern);
+        if (tl == null) {
+            tl = new ThreadLocal<NumberFormat>() {
+
+                @Override
+                protected NumberFormat initialValue() {
+                    return new DecimalFormat(pattern);
+                }
+            };
+            final ThreadLocal<NumberFormat> prev = decimalFormats.putIfAbsent(pattern, tl);
+            if (prev != null) {
+                tl = prev;
+            }
+        }
+        return tl.get();
+    }
+}
@@ -31,36 +31,52 @@ import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import bsh.BshClassManager;
+import bsh.BshMethod;
 import bsh.EvalError;
 import bsh.Interpreter;
+import bsh.Primitive;
 import bsh.UtilEvalError;
 
 /**
  * A generic converter that uses a beanbash based xml for excecution.
+ * <p>
+ * The visualize and build scripts are read once. Scripts with a return
+ * statement are compiled into BeanShell methods that take value and converter
+ * as parameters, so they are parsed once per thread instead of once per call.
+ * Scripts without one yield their last expression and are evaluated as they
+ * are. Each thread gets its own interpreter, so every evaluation has its own
+ * bindings and concurrent requests never share variables.
  * 
  * @author jpaoletti
  */
 public class GenericConverter extends Converter {
 
+    private static final String VISUALIZE_METHOD = "pmVisualize";
+    private static final String BUILD_METHOD = "pmBuild";
+    private static final Class<?>[] SIGNATURE = {Object.class, Object.class};
     private String filename;
-    private Interpreter bsh;
     private String visualize;
     private String build;
+    private transient volatile boolean loaded = false;
+    private transient ThreadLocal<CompiledScripts> scripts;
 
     @Override
     public String visualize(PMContext ctx) throws ConverterException {
         try {
-            Interpreter bash = getBsh();
             EntityInstanceWrapper einstance = (EntityInstanceWrapper) ctx.get(PM_ENTITY_INSTANCE_WRAPPER);
             Field field = (Field) ctx.get(PM_FIELD);
             Object o = getValue(einstance, field);
-            bash.set("value", o);
-            bash.set("converter", this);
-            debug("Generic Converter Visualize value: " + o);
+            if (getDebug()) {
+                debug("Generic Converter Visualize value: " + o);
+            }
             if (o == null) {
                 return getConfig("null-value", "-");
             }
-            String result = bash.eval(visualize).toString();
+            final CompiledScripts cs = getScripts();
+            if (cs == null) {
+                return null;
+            }
+            String result = String.valueOf(cs.eval(cs.visualize, visualize, o, this));
             final String res = visualize(result, ctx.getString(PM_EXTRA_DATA));
             if ("IgnoreConvertionException".equals(res)) {
                 throw new IgnoreConvertionException("");
@@ -81,10 +97,11 @@ public class GenericConverter extends Converter {
     @Override
     public Object build(PMContext ctx) throws ConverterException {
         try {
-            Interpreter bash = getBsh();
-            bash.set("value", ctx.get(PM_FIELD_VALUE));
-            bash.set("converter", this);
-            final Object res = bash.eval(build);
+            final CompiledScripts cs = getScripts();
+            if (cs == null) {
+                return null;
+            }
+            final Object res = cs.eval(cs.build, build, ctx.get(PM_FIELD_VALUE), this);
             if ("IgnoreConvertionException".equals(res)) {
                 throw new IgnoreConvertionException("");
             }
@@ -102,17 +119,39 @@ public class GenericConverter extends Converter {
         super();
     }
 
-    private Interpreter getBsh() {
-        if (bsh == null) {
-            try {
-                this.filename = getConfig("filename");
-                readFile(filename);
-                bsh = initBSH();
-            } catch (Exception e) {
-                getLog().error("BSH Interpreter Creation", e);
+    /**
+     * Read the script file, once
+     */
+    private void load() throws ConverterException {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    this.filename = getConfig("filename");
+                    readFile(filename);
+                    scripts = new ThreadLocal<CompiledScripts>();
+                    loaded = true;
+                }
             }
         }
-        return bsh;
+    }
+
+    /**
+     * Return the scripts compiled for the current thread
+     * @return The scripts or null if they can not be compiled
+     */
+    private CompiledScripts getScripts() {
+        try {
+            load();
+            CompiledScripts cs = scripts.get();
+            if (cs == null) {
+                cs = new CompiledScripts(initBSH());
+                scripts.set(cs);
+            }
+            return cs;
+        } catch (Exception e) {
+            getLog().error("BSH Interpreter Creation", e);
+            return null;
+        }
     }
 
     /**
@@ -192,12 +231,100 @@ public class GenericConverter extends Converter {
         return bash;
     }
 
+    /**
+     * True if the script has a return statement, looking for the keyword
+     * outside string literals and comments
+     */
+    private static boolean hasReturn(String script) {
+        final int n = script.length();
+        int i = 0;
+        while (i < n) {
+            final char ch = script.charAt(i);
+            if (ch == '"' || ch == '\'') {
+                i++;
+                while (i < n && script.charAt(i) != ch) {
+                    i += (script.charAt(i) == '\\') ? 2 : 1;
+                }
+                i++;
+            } else if (script.startsWith("//", i)) {
+                final int end = script.indexOf('\n', i);
+                i = (end < 0) ? n : end + 1;
+            } else if (script.startsWith("/*", i)) {
+                final int end = script.indexOf("*/", i + 2);
+                i = (end < 0) ? n : end + 2;
+            } else if (Character.isJavaIdentifierStart(ch)) {
+                final int start = i;
+                while (i < n && Character.isJavaIdentifierPart(script.charAt(i))) {
+                    i++;
+                }
+                if ("return".equals(script.substring(start, i))) {
+                    return true;
+                }
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The visualize and build scripts of one interpreter
+     */
+    private class CompiledScripts {
+
+        private final Interpreter interpreter;
+        private final BshMethod visualize;
+        private final BshMethod build;
+
+        CompiledScripts(Interpreter interpreter) throws EvalError, UtilEvalError {
+            this.interpreter = interpreter;
+            this.visualize = define(VISUALIZE_METHOD, GenericConverter.this.visualize);
+            this.build = define(BUILD_METHOD, GenericConverter.this.build);
+        }
+
+        /**
+         * Define the script as a method if it has a return statement
+         * @return The method or null if the script is evaluated as it is
+         */
+        private BshMethod define(String name, String script) throws EvalError, UtilEvalError {
+            if (script == null || !hasReturn(script)) {
+                return null;
+            }
+            final String body = script.trim();
+            //The interpreter adds the last semicolon to plain scripts
+            final String end = (body.endsWith(";") || body.endsWith("}")) ? "" : ";";
+            interpreter.eval("Object " + name + "(Object value, Object converter) {\n" + body + end + "\n}");
+            return interpreter.getNameSpace().getMethod(name, SIGNATURE);
+        }
+
+        /**
+         * Invoke the method of the script or, if it has none, evaluate it
+         */
+        Object eval(BshMethod method, String script, Object value, Object converter) throws EvalError {
+            if (script == null) {
+                return null;
+            }
+            if (method != null) {
+                final Object res = method.invoke(new Object[]{value, converter}, interpreter);
+                return (res == Primitive.VOID) ? null : Primitive.unwrap(res);
+            }
+            interpreter.set("value", value);
+            interpreter.set("converter", converter);
+            try {
+                return interpreter.eval(script);
+            } finally {
+                interpreter.unset("value");
+                interpreter.unset("converter");
+            }
+        }
+    }
+
     /**
      * 
      */
     public class GenericContentHandler extends DefaultHandler {
 
-        private String value;
+        private final StringBuilder value = new StringBuilder();
 
         /**
          * 
@@ -226,7 +353,7 @@ public class GenericConverter extends Converter {
          */
         @Override
         public void characters(char[] ch, int start, int length) throws SAXException {
-            value = new String(ch);
+            value.append(ch, start, length);
         }
 
         /**
@@ -239,6 +366,7 @@ public class GenericConverter extends Converter {
          */
         @Override
         public void startElement(String namespaceURI, String localName, String qName, Attributes atts) throws SAXException {
+            value.setLength(0);
         }
 
         /**
@@ -250,10 +378,10 @@ public class GenericConverter extends Converter {
         @Override
         public void endElement(String namespaceURI, String localName, String qName) {
             if (localName.compareTo("visualize") == 0) {
-                visualize = value;
+                visualize = value.toString();
             }
             if (localName.compareTo("build") == 0) {
-                build = value;
+                build = value.toString();
             }
         }
 
@@ -18,7 +18,6 @@
 package org.jpos.ee.pm.converter;
 
 import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.jpos.ee.pm.core.EntityInstanceWrapper;
@@ -55,10 +54,10 @@ public class ShowDateConverter extends Converter {
 
     /**
      *
-     * @return the DateFormat object with the configured date format
+     * @return the DateFormat object with the configured date format, shared
+     * by the current thread
      */
     protected DateFormat getDateFormat() {
-        DateFormat df = new SimpleDateFormat (getConfig("format", "MM/dd/yyyy"));
-        return df;
+        return Formats.getDateFormat(getConfig("format", "MM/dd/yyyy"));
     }
 }
\ No newline at end of file
@@ -18,8 +18,6 @@
 package org.jpos.ee.pm.converter;
 
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 
 import org.jpos.ee.pm.core.Field;
 import org.jpos.ee.pm.core.PMContext;
@@ -54,11 +52,10 @@ public class ShowDecimalConverter extends ShowStringConverter {
         try{
             o = (BigDecimal) getValue(ctx.getSelected().getInstance(),field);
         }catch (Exception e) {}
-        NumberFormat formatter = new DecimalFormat(getConfig("format", "#0.00"));
         if(o==null)
             return getConfig("null-value","0.00");
         else
-            return visualize(formatter.format(o),ctx.getString(PM_EXTRA_DATA));
+            return visualize(Formats.getDecimalFormat(getConfig("format", "#0.00")).format(o),ctx.getString(PM_EXTRA_DATA));
     }
 }
 
@@ -44,8 +44,9 @@ public class ShowStringConverter extends Converter {
 
     @Override
     public String visualize(Object obj, String extra) throws ConverterException{
-        String prefix = getConfig("prefix");
-        String suffix = getConfig("suffix");
+        final ConverterConfig cfg = getConverterConfig();
+        final String prefix = cfg.getPrefix();
+        final String suffix = cfg.getSuffix();
         String res = obj != null ? obj.toString() : "";
         if(!res.equals("")){
             if(prefix!=null) res = prefix + res;
@@ -0,0 +1,52 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.converter;
+
+import org.jpos.ee.pm.core.PMContext;
+
+/**Built in converter that shows the field value using its toString method.
+ * It is the default converter when none is configured and does the same as
+ * a GenericConverter with cfg/converters/show.tostring.converter, without
+ * reading files nor evaluating scripts. It has no state, so a single shared
+ * instance is used.
+ * <pre>
+ * {@code
+ * <converter class="org.jpos.ee.pm.converter.ShowToStringConverter" operations="list show" />
+ * }
+ * </pre>
+ * @author jpaoletti
+ * */
+public class ShowToStringConverter extends Converter {
+
+    /**Shared instance*/
+    public static final ShowToStringConverter INSTANCE = new ShowToStringConverter();
+
+    @Override
+    public Object build(PMContext ctx) throws ConverterException {
+        throw new IgnoreConvertionException("");
+    }
+
+    @Override
+    public String visualize(PMContext ctx) throws ConverterException {
+        final Object o = ctx.getFieldValue();
+        if (o == null) {
+            return getConfig("null-value", "-");
+        }
+        return visualize(o, ctx.getString(PM_EXTRA_DATA));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+/**
+ * Per context state for converting cells one after the other. Moving the
+ * cursor to a cell fills the well known context slots (instance, wrapper,
+ * field and value) reusing a single instance wrapper, so rendering a page
+ * does not create a wrapper per cell.
+ *
+ * The wrapper is only valid until the cursor moves again; converters must
+ * not keep it.
+ *
+ * @author jpaoletti
+ * @see PMContext#getCursor()
+ */
+public class ConversionCursor {
+
+    private final PMContext ctx;
+    private final EntityInstanceWrapper wrapper = new EntityInstanceWrapper();
+    private int row = -1;
+
+    public ConversionCursor(PMContext ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * Move to the row of the given instance. Nothing changes if the cursor
+     * is already there.
+     * @param instance The entity instance of the row
+     */
+    public void moveTo(Object instance) {
+        if (row < 0 || wrapper.getInstance() != instance) {
+            row++;
+            wrapper.setInstance(instance);
+        }
+        ctx.setEntityInstance(instance);
+        ctx.setEntityInstanceWrapper(wrapper);
+    }
+
+    /**
+     * Move to a field of the current row
+     * @param field The field
+     * @param value The field value
+     */
+    public void cell(Field field, Object value) {
+        ctx.setField(field);
+        ctx.setFieldValue(value);
+    }
+
+    /**
+     * @return Rows visited since the cursor was created
+     */
+    public int getRow() {
+        return row;
+    }
+}
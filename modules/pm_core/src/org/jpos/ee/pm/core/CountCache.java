@@ -0,0 +1,162 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared cache of list totals by entity and filter key.
+ * <br/>
+ * Each entity has a version that is increased when one of its instances is
+ * written. A total is stored with the version read before counting, so a
+ * count that was running while a write was committed is never kept.
+ *
+ * @author jpaoletti
+ */
+public class CountCache {
+
+    /**Totals kept per entity, the entity totals are dropped above this*/
+    public static final int MAX_KEYS = 256;
+    private final ConcurrentMap<String, Totals> entities = new ConcurrentHashMap<String, Totals>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Return the cached total or null if there is none or it expired
+     *
+     * @param entityId The entity id
+     * @param key The filter key
+     * @return The total or null
+     */
+    public Long get(String entityId, String key) {
+        final Totals totals = entities.get(entityId);
+        final Total total = (totals == null) ? null : totals.values.get(key);
+        if (total == null || total.version != totals.version.get()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (total.expires < System.currentTimeMillis()) {
+            totals.values.remove(key, total);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return total.value;
+    }
+
+    /**
+     * Current version of the entity, to be read before counting
+     *
+     * @param entityId The entity id
+     * @return The version
+     */
+    public long getVersion(String entityId) {
+        return getTotals(entityId).version.get();
+    }
+
+    /**
+     * Keep a total for the given seconds, unless the entity was written since
+     * the given version was read
+     *
+     * @param entityId The entity id
+     * @param key The filter key
+     * @param value The total
+     * @param ttl Seconds to keep it
+     * @param version The version read before counting
+     */
+    public void put(String entityId, String key, Long value, int ttl, long version) {
+        if (value == null || ttl <= 0) {
+            return;
+        }
+        final Totals totals = getTotals(entityId);
+        if (totals.values.size() >= MAX_KEYS) {
+            totals.values.clear();
+        }
+        totals.values.put(key, new Total(value, System.currentTimeMillis() + ttl * 1000L, version));
+        if (totals.version.get() != version) {
+            totals.values.remove(key);
+        }
+    }
+
+    /**
+     * Drop every total of the entity
+     *
+     * @param entityId The entity id
+     */
+    public void invalidate(String entityId) {
+        final Totals totals = getTotals(entityId);
+        totals.version.incrementAndGet();
+        totals.values.clear();
+    }
+
+    /**
+     * Drop every total
+     */
+    public void clear() {
+        for (Totals totals : entities.values()) {
+            totals.version.incrementAndGet();
+            totals.values.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private Totals getTotals(String entityId) {
+        Totals totals = entities.get(entityId);
+        if (totals == null) {
+            totals = new Totals();
+            final Totals previous = entities.putIfAbsent(entityId, totals);
+            if (previous != null) {
+                totals = previous;
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public String toString() {
+        return "CountCache [entities=" + entities.size() + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    private static class Totals {
+
+        private final AtomicLong version = new AtomicLong();
+        private final ConcurrentMap<String, Total> values = new ConcurrentHashMap<String, Total>();
+    }
+
+    private static class Total {
+
+        private final Long value;
+        private final long expires;
+        private final long version;
+
+        private Total(Long value, long expires, long version) {
+            this.value = value;
+            this.expires = expires;
+            this.version = version;
+        }
+    }
+}
@@ -47,6 +47,39 @@ public interface DataAccess {
      * */
     public List<?> list(PMContext ctx, EntityFilter filter, Integer from, Integer count) throws PMException;
 
+    /**Walks through every item that matches the filter, in the context list
+     * order, handing them one by one to the given handler. Items are not
+     * kept, so memory use does not depend on the number of items.
+     *
+     * @param ctx The context
+     * @param filter The filter of the list
+     * @param batchSize Number of items fetched and released together
+     * @param handler The item handler
+     * @return The number of handled items
+     * @throws PMException
+     * */
+    public long iterate(PMContext ctx, EntityFilter filter, int batchSize, RowHandler handler) throws PMException;
+
+    /**Get the identifier of an item, used to keep references to it across
+     * requests
+     *
+     * @param ctx The context
+     * @param item The item
+     * @return The identifier or null if items can not be read by identifier
+     * @throws PMException
+     * */
+    public Object getId(PMContext ctx, Object item) throws PMException;
+
+    /**Get the items with the given identifiers, in the same order
+     *
+     * @param ctx The context
+     * @param ids The identifiers
+     * @return The items or null if some of them no longer exists or items
+     * can not be read by identifier
+     * @throws PMException
+     * */
+    public List<?> getItems(PMContext ctx, List<Object> ids) throws PMException;
+
     /**Get the total number of items of the entity
      * @param ctx The context
      * @return Item total count
@@ -78,6 +111,88 @@ public interface DataAccess {
      * */
     public void add(PMContext ctx, Object instance) throws PMException;
 
+    /**Adds the given objects to the data source, writing them in batches
+     *
+     * @param ctx The context
+     * @param items The new objects
+     * @param batchSize Number of objects written together
+     * @throws PMException
+     * */
+    public void addAll(PMContext ctx, List<?> items, int batchSize) throws PMException;
+
+    /**Removes the given objects, writing them to the data source in batches
+     *
+     * @param ctx The context
+     * @param items The objects to remove
+     * @param batchSize Number of objects written together
+     * @return The number of removed objects
+     * @throws PMException
+     * */
+    public long deleteAll(PMContext ctx, List<?> items, int batchSize) throws PMException;
+
+    /**Removes every object that matches the filter, writing them to the data
+     * source in batches
+     *
+     * @param ctx The context
+     * @param filter The filter of the list
+     * @param batchSize Number of objects written together
+     * @return The number of removed objects
+     * @throws PMException
+     * */
+    public long deleteAll(PMContext ctx, EntityFilter filter, int batchSize) throws PMException;
+
+    /**Removes the objects with the given identifiers, writing them to the
+     * data source in batches. Objects that no longer exist are skipped.
+     *
+     * @param ctx The context
+     * @param ids The identifiers, as returned by {@link #getId(PMContext, Object)},
+     * or the rows of the objects in the filtered list if they can not be
+     * read by identifier
+     * @param batchSize Number of objects written together
+     * @return The number of removed objects
+     * @throws PMException
+     * */
+    public long deleteAllById(PMContext ctx, List<Object> ids, int batchSize) throws PMException;
+
+    /**Hands the given objects one by one to the handler, which modifies them,
+     * and updates them in the data source in batches
+     *
+     * @param ctx The context
+     * @param items The objects to update
+     * @param batchSize Number of objects written together
+     * @param handler Modifies each object
+     * @return The number of updated objects
+     * @throws PMException
+     * */
+    public long updateAll(PMContext ctx, List<?> items, int batchSize, RowHandler handler) throws PMException;
+
+    /**Hands every object that matches the filter to the handler, which
+     * modifies them, and updates them in the data source in batches
+     *
+     * @param ctx The context
+     * @param filter The filter of the list
+     * @param batchSize Number of objects written together
+     * @param handler Modifies each object
+     * @return The number of updated objects
+     * @throws PMException
+     * */
+    public long updateAll(PMContext ctx, EntityFilter filter, int batchSize, RowHandler handler) throws PMException;
+
+    /**Hands the objects with the given identifiers one by one to the
+     * handler, which modifies them, and updates them in the data source in
+     * batches. Objects that no longer exist are skipped.
+     *
+     * @param ctx The context
+     * @param ids The identifiers, as returned by {@link #getId(PMContext, Object)},
+     * or the rows of the objects in the filtered list if they can not be
+     * read by identifier
+     * @param batchSize Number of objects written together
+     * @param handler Modifies each object
+     * @return The number of updated objects
+     * @throws PMException
+     * */
+    public long updateAllById(PMContext ctx, List<Object> ids, int batchSize, RowHandler handler) throws PMException;
+
     /**Synchronize the referenced object with the data source
      * 
      * @param ctx The context
@@ -87,6 +202,18 @@ public interface DataAccess {
      * */
     public Object refresh(PMContext ctx, Object o) throws PMException;
 
+    /**Synchronize the referenced object with the data source unless it still
+     * has the given version there, in which case the object is reused
+     * 
+     * @param ctx The context
+     * @param o The object to refresh
+     * @param version The version of the object when it was read, null if
+     * unknown
+     * @return Fresh object
+     * @throws PMException
+     * */
+    public Object refresh(PMContext ctx, Object o, Object version) throws PMException;
+
     /**Creates a new instance of the specific class of this data access
      * 
      * @param ctx The context
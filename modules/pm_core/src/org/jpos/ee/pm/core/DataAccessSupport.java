@@ -0,0 +1,140 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base data access with generic implementations, built on
+ * {@link #list(PMContext, EntityFilter, Integer, Integer)}, of the methods
+ * that a data source may do better by itself.
+ *
+ * @author jpaoletti
+ */
+public abstract class DataAccessSupport implements DataAccess {
+
+    public long iterate(PMContext ctx, EntityFilter filter, int batchSize, RowHandler handler) throws PMException {
+        final List<?> items = list(ctx, filter, null, null);
+        long n = 0;
+        if (items != null) {
+            for (Object instance : items) {
+                if (!handler.handle(ctx, instance)) {
+                    break;
+                }
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Objects are added one by one
+     */
+    public void addAll(PMContext ctx, List<?> items, int batchSize) throws PMException {
+        for (Object instance : items) {
+            add(ctx, instance);
+        }
+    }
+
+    /**
+     * Objects are removed one by one
+     */
+    public long deleteAll(PMContext ctx, List<?> items, int batchSize) throws PMException {
+        long n = 0;
+        for (Object instance : items) {
+            delete(ctx, instance);
+            n++;
+        }
+        return n;
+    }
+
+    public long deleteAll(PMContext ctx, EntityFilter filter, int batchSize) throws PMException {
+        final List<?> items = list(ctx, filter, null, null);
+        //Copied, the list may be backed by the removed objects
+        return (items == null) ? 0 : deleteAll(ctx, new ArrayList<Object>(items), batchSize);
+    }
+
+    public long deleteAllById(PMContext ctx, List<Object> ids, int batchSize) throws PMException {
+        return deleteAll(ctx, getItemsById(ctx, ids), batchSize);
+    }
+
+    /**
+     * Objects are updated one by one
+     */
+    public long updateAll(PMContext ctx, List<?> items, int batchSize, RowHandler handler) throws PMException {
+        long n = 0;
+        for (Object instance : items) {
+            if (!handler.handle(ctx, instance)) {
+                break;
+            }
+            update(ctx, instance);
+            n++;
+        }
+        return n;
+    }
+
+    public long updateAll(PMContext ctx, EntityFilter filter, int batchSize, RowHandler handler) throws PMException {
+        final List<?> items = list(ctx, filter, null, null);
+        return (items == null) ? 0 : updateAll(ctx, new ArrayList<Object>(items), batchSize, handler);
+    }
+
+    public long updateAllById(PMContext ctx, List<Object> ids, int batchSize, RowHandler handler) throws PMException {
+        return updateAll(ctx, getItemsById(ctx, ids), batchSize, handler);
+    }
+
+    /**
+     * Items read by identifier or, when this data access does not read items
+     * by identifier, read by their rows in the container filtered list
+     */
+    private List<?> getItemsById(PMContext ctx, List<Object> ids) throws PMException {
+        final List<?> items = getItems(ctx, ids);
+        if (items != null) {
+            return items;
+        }
+        final EntityFilter filter = ctx.hasEntityContainer() ? ctx.getEntityContainer().getFilter() : null;
+        final List<Object> result = new ArrayList<Object>(ids.size());
+        for (Object id : ids) {
+            if (id instanceof Integer) {
+                final List<?> row = list(ctx, filter, (Integer) id, 1);
+                if (row != null && !row.isEmpty()) {
+                    result.add(row.get(0));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Items are not read by identifier unless the data source supports it
+     */
+    public Object getId(PMContext ctx, Object item) throws PMException {
+        return null;
+    }
+
+    public List<?> getItems(PMContext ctx, List<Object> ids) throws PMException {
+        return null;
+    }
+
+    /**
+     * Versions are not checked unless the data source supports it
+     */
+    public Object refresh(PMContext ctx, Object o, Object version) throws PMException {
+        return refresh(ctx, o);
+    }
+}
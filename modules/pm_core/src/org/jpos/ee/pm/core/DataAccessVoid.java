@@ -7,7 +7,7 @@ import java.util.List;
  * 
  * @author jpaoletti
  * */
-public class DataAccessVoid implements DataAccess {
+public class DataAccessVoid extends DataAccessSupport {
 
 	
 	public void add(PMContext ctx, Object instance) throws PMException {
@@ -0,0 +1,149 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the definition files (entities, monitors and external converters)
+ * and asks the presentation manager to reload the ones that changed. A file
+ * is considered changed when its modification time or its size differs from
+ * the last check.
+ *
+ * @author jpaoletti
+ * @see PresentationManager#reload(Collection)
+ */
+public class DefinitionWatcher {
+
+    private final PresentationManager pm;
+    private final Map<String, String> stamps = new HashMap<String, String>();
+    private ScheduledExecutorService scheduler;
+    private int reloads;
+
+    public DefinitionWatcher(PresentationManager pm) {
+        this.pm = pm;
+    }
+
+    /**
+     * Start watching the given files
+     * @param files The files
+     */
+    public synchronized void watch(Collection<String> files) {
+        for (String f : files) {
+            stamps.put(f, stamp(f));
+        }
+    }
+
+    /**
+     * Start polling with the given interval
+     * @param interval Milliseconds between checks
+     */
+    public synchronized void start(long interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, "pm-definition-watcher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    check();
+                } catch (Exception e) {
+                    PresentationManager.getPm().error(e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop polling
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Check the files now and reload the changed ones. The state of a file
+     * is remembered only once it is reloaded, so a file that fails is tried
+     * again on the next check.
+     * @return The changed files
+     */
+    public List<String> check() {
+        final Map<String, String> changed = changed();
+        if (!changed.isEmpty()) {
+            final List<String> failed = new ArrayList<String>();
+            pm.reload(changed.keySet(), failed);
+            synchronized (this) {
+                for (Map.Entry<String, String> entry : changed.entrySet()) {
+                    if (!failed.contains(entry.getKey())) {
+                        stamps.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                reloads++;
+            }
+        }
+        return new ArrayList<String>(changed.keySet());
+    }
+
+    /**
+     * Return the files changed since they were last reloaded, with their
+     * current state.
+     */
+    protected synchronized Map<String, String> changed() {
+        final Map<String, String> result = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> entry : stamps.entrySet()) {
+            final String s = stamp(entry.getKey());
+            if (!s.equals(entry.getValue())) {
+                result.put(entry.getKey(), s);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of reloads triggered by this watcher
+     */
+    public synchronized int getReloads() {
+        return reloads;
+    }
+
+    private static String stamp(String filename) {
+        final File f = new File(filename);
+        return f.lastModified() + ":" + f.length();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jpos.util.LogEvent;
+import org.jpos.util.Logger;
+
+/**
+ * Debug logging for the request paths. The debug flag is read once from the
+ * configuration, so a disabled check is a single volatile read and callers
+ * can skip building messages at all. Enabled events are queued in a bounded
+ * buffer and written to the jPOS logger by a background thread, so requests
+ * never wait on log listeners. When the buffer is full new events are
+ * dropped and counted.
+ *
+ * @author jpaoletti
+ * @see PresentationManager#debug(Object, Object)
+ */
+public class Diagnostics {
+
+    private volatile boolean debug;
+    private final BlockingQueue<LogEvent> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread writer;
+
+    /**
+     * @param debug Initial debug flag
+     * @param capacity Maximum number of pending events
+     */
+    public Diagnostics(boolean debug, int capacity) {
+        this.debug = debug;
+        this.buffer = new ArrayBlockingQueue<LogEvent>(Math.max(capacity, 1));
+    }
+
+    /**
+     * @return true if debug events are enabled
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    public void setDebug(boolean debug) {
+        this.debug = debug;
+    }
+
+    /**
+     * Queue the given event to be written to the logger. If the writer is not
+     * running the event is written right away.
+     *
+     * @param evt The event
+     */
+    public void log(LogEvent evt) {
+        if (writer == null) {
+            Logger.log(evt);
+        } else if (!buffer.offer(evt)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Start the writer thread
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        final Thread t = new Thread(new Runnable() {
+
+            public void run() {
+                while (writer == Thread.currentThread()) {
+                    try {
+                        final LogEvent evt = buffer.poll(1, TimeUnit.SECONDS);
+                        if (evt != null) {
+                            Logger.log(evt);
+                        }
+                    } catch (InterruptedException e) {
+                        break;
+                    } catch (Exception e) {
+                        //A failing listener must not stop the writer
+                    }
+                }
+                flush();
+            }
+        }, "pm-log-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    /**
+     * Stop the writer thread. Pending events are written before it ends.
+     */
+    public synchronized void stop() {
+        final Thread t = writer;
+        writer = null;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private void flush() {
+        LogEvent evt;
+        while ((evt = buffer.poll()) != null) {
+            Logger.log(evt);
+        }
+    }
+
+    /**
+     * @return Number of events waiting to be written
+     */
+    public int getPending() {
+        return buffer.size();
+    }
+
+    /**
+     * @return Number of events dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -20,8 +20,11 @@ package org.jpos.ee.pm.core;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.jpos.ee.Constants;
 
 /**An Entity is the visual representation and operation over a class of a data model. One entity is 
  * configured through an xml file.<br/>
@@ -66,7 +69,7 @@ public class Entity extends PMCoreObject {
      * <br/>{@code <extendz>other_entity_id</extendz>}*/
     private String extendz;
     /**The parent entity if extendz is defined*/
-    private Entity extendzEntity;
+    private transient Entity extendzEntity;
     /**Indicates if the entity is auditable so every time an instance is modified, the PM will
      * create an auditory entry of the change 
      * <br/><pre>{@code <auditable>true</auditable>}</pre> 
@@ -90,7 +93,7 @@ public class Entity extends PMCoreObject {
     private ArrayList<Field> fields;
     /**Internal map to optimize getFieldById() method
      * @see #getFieldById(String)*/
-    private Map<String, Field> fieldsbyid;
+    private transient Map<String, Field> fieldsbyid;
     /**Operations of the entity. Standard operations are "add", "edit", "delete", "show", "list"
      * but the programmer can define whatever he wants.
      * <br/>{@code <operations>...</operations>}
@@ -101,10 +104,28 @@ public class Entity extends PMCoreObject {
     /**A list of highlights.*/
     private Highlights highlights;
     /** Data Access*/
-    private DataAccess dataAccess;
+    private transient DataAccess dataAccess;
     /**Avoid counting items*/
     private Boolean noCount;
-    private List<Entity> weaks;
+    /**Read next and previous list pages with range predicates on the sort key instead of offsets*/
+    private Boolean keysetPagination;
+    /**Seconds a list total is reused for the same filter, overrides the "count-ttl" configuration*/
+    private Integer countTtl;
+    /**Show the list page without waiting for the total, which is read afterwards*/
+    private Boolean deferredCount;
+    /**Keep list pages in the shared page cache*/
+    private Boolean pageCache;
+    /**Mapped version (or last modification) property, used to skip reloading unchanged instances*/
+    private String versionProperty;
+    /**Number of property values mapped to identifiers for item lookups, none by default*/
+    private Integer idCacheSize;
+    private transient volatile IdentifierCache idCache;
+    private transient List<Entity> weaks;
+    /**Compiled state, rebuilt when fields, order or parent change*/
+    private transient List<Field> allFields;
+    private transient List<Field> orderedFields;
+    private transient FieldLayouts layouts;
+    private transient Class<?> entityClass;
 
     /**Default constructor*/
     public Entity() {
@@ -116,23 +137,120 @@ public class Entity extends PMCoreObject {
     /**
      * Return the list of fields including inherited ones.
      *
-     * @return The list
+     * @return A new list
      */
     public ArrayList<Field> getAllFields() {
-        ArrayList<Field> r = new ArrayList<Field>();
-        if (getFields() != null) {
-            r.addAll(getFields());
-        }
-        if (getExtendzEntity() != null) {
-            for (Field field : getExtendzEntity().getAllFields()) {
-                if (!r.contains(field)) {
-                    r.add(field);
+        return new ArrayList<Field>(allFields());
+    }
+
+    /**
+     * Fields including inherited ones, computed once
+     */
+    private List<Field> allFields() {
+        List<Field> r = allFields;
+        if (r == null) {
+            final List<Field> all = new ArrayList<Field>();
+            final Set<String> ids = new HashSet<String>();
+            if (getFields() != null) {
+                for (Field field : getFields()) {
+                    all.add(field);
+                    ids.add(field.getId());
                 }
             }
+            if (getExtendzEntity() != null) {
+                for (Field field : getExtendzEntity().allFields()) {
+                    if (ids.add(field.getId())) {
+                        all.add(field);
+                    }
+                }
+            }
+            r = Collections.unmodifiableList(all);
+            allFields = r;
         }
         return r;
     }
 
+    /**
+     * Return the layout of the given operation: the ordered fields displayed
+     * by the operation.
+     *
+     * @param operationId The operation id
+     * @return The layout
+     */
+    public FieldLayout getLayout(String operationId) {
+        return getLayouts().get(operationId);
+    }
+
+    /**
+     * Layouts of this entity by operation id
+     * @return The layouts
+     */
+    public FieldLayouts getLayouts() {
+        FieldLayouts l = layouts;
+        if (l == null) {
+            l = new FieldLayouts(this);
+            layouts = l;
+        }
+        return l;
+    }
+
+    /**
+     * The class of the entity instances, loaded once
+     *
+     * @return The class
+     * @throws ClassNotFoundException if the class does not exist
+     */
+    public Class<?> getEntityClass() throws ClassNotFoundException {
+        Class<?> c = entityClass;
+        if (c == null) {
+            c = Class.forName(getClazz());
+            entityClass = c;
+        }
+        return c;
+    }
+
+    /**
+     * Resolve fields, order, the layout and field converters of each defined
+     * operation, the converters configuration and the entity class. Called
+     * when the entity is registered; everything is also computed on demand.
+     */
+    public void compile() {
+        orderedFields();
+        for (Field f : allFields()) {
+            if (f.getConverters() != null) {
+                f.getConverters().compile();
+            }
+        }
+        if (getHighlights() != null) {
+            getHighlights().compile(this);
+        }
+        if (getOperations() != null && getOperations().getOperations() != null) {
+            for (Operation op : getOperations().getOperations()) {
+                getLayout(op.getId());
+                for (Field f : allFields()) {
+                    if (f.getConverters() != null) {
+                        f.getConverters().getConverterForOperation(op.getId());
+                    }
+                }
+            }
+        }
+        try {
+            getEntityClass();
+        } catch (ClassNotFoundException e) {
+            //Reported when the entity is loaded
+        }
+    }
+
+    /**
+     * Forget compiled state
+     */
+    private void reset() {
+        allFields = null;
+        orderedFields = null;
+        layouts = null;
+        fieldsbyid = null;
+    }
+
     /**
      * Returns a list of this entity instances with null from and count and
      * with the given filter
@@ -171,9 +289,70 @@ public class Entity extends PMCoreObject {
      */
     public List<?> getList(PMContext ctx, EntityFilter filter, Integer from, Integer count) throws PMException {
         ctx.put(PM_ENTITY, this);
-        List<?> list = getDataAccess().list(ctx, filter, from, count);
-        ctx.put(PM_ENTITY, null);
-        return list;
+        try {
+            final String key = getPageKey(ctx, filter, from, count);
+            if (key == null) {
+                return getDataAccess().list(ctx, filter, from, count);
+            }
+            final PageCache cache = ctx.getPresentationManager().getPageCache();
+            final List<Object> ids = cache.get(getId(), key);
+            if (ids != null) {
+                final List<?> items = getDataAccess().getItems(ctx, ids);
+                if (items != null) {
+                    return items;
+                }
+            }
+            final long version = cache.getVersion(getId());
+            final List<?> list = getDataAccess().list(ctx, filter, from, count);
+            final List<Object> listIds = new ArrayList<Object>(list.size());
+            for (Object item : list) {
+                final Object id = getDataAccess().getId(ctx, item);
+                if (id == null) {
+                    return list;
+                }
+                listIds.add(id);
+            }
+            cache.put(getId(), key, listIds, version);
+            return list;
+        } finally {
+            ctx.put(PM_ENTITY, null);
+        }
+    }
+
+    /**
+     * Key of the lists of this entity with the given filter in shared caches,
+     * or null if they must not be shared. Weak entity lists depend on the
+     * owner instance and list filters may depend on the user, so the latter
+     * are only shared inside a session.
+     *
+     * @param ctx The context
+     * @param filter The filter
+     * @return The key or null
+     */
+    public String getCacheKey(PMContext ctx, EntityFilter filter) {
+        if (isWeak()) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder((filter == null) ? "" : filter.getKey());
+        if (getListfilter() != null) {
+            sb.append('@').append(ctx.getSessionId());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Page cache key of a list, null when this entity does not use the page
+     * cache or the list is not a page
+     */
+    private String getPageKey(PMContext ctx, EntityFilter filter, Integer from, Integer count) {
+        if (!getPageCache() || getKeysetPagination() || count == null) {
+            return null;
+        }
+        final String key = getCacheKey(ctx, filter);
+        if (key == null) {
+            return null;
+        }
+        return key + "|" + ctx.get(Constants.PM_LIST_ORDER) + "|" + ctx.get(Constants.PM_LIST_ASC) + "|" + from + "|" + count;
     }
 
     /**Getter for a field by its id
@@ -187,29 +366,44 @@ public class Entity extends PMCoreObject {
      * @return The mapped field list
      * */
     private Map<String, Field> getFieldsbyid() {
-        if (fieldsbyid == null) {
-            fieldsbyid = new HashMap<String, Field>();
-            for (Field f : getAllFields()) {
-                fieldsbyid.put(f.getId(), f);
+        Map<String, Field> m = fieldsbyid;
+        if (m == null) {
+            m = new HashMap<String, Field>();
+            for (Field f : allFields()) {
+                m.put(f.getId(), f);
             }
+            fieldsbyid = m;
         }
-        return fieldsbyid;
+        return m;
     }
 
     /**This method sorts the fields and returns them
-     * @return fields ordered
+     * @return fields ordered, in a new list
      * */
     public ArrayList<Field> getOrderedFields() {
-        try {
-            if (isOrdered()) {
-                ArrayList<Field> r = new ArrayList<Field>(getAllFields());
-                Collections.sort(r, new FieldComparator(getOrder()));
-                return r;
+        return new ArrayList<Field>(orderedFields());
+    }
+
+    /**
+     * Fields sorted by the entity order, computed once. Used for layouts.
+     * @return An unmodifiable list
+     */
+    List<Field> orderedFields() {
+        List<Field> r = orderedFields;
+        if (r == null) {
+            r = allFields();
+            try {
+                if (isOrdered()) {
+                    final List<Field> sorted = new ArrayList<Field>(r);
+                    Collections.sort(sorted, new FieldComparator(getOrder()));
+                    r = Collections.unmodifiableList(sorted);
+                }
+            } catch (Exception e) {
+                getPresentationManager().error(e);
             }
-        } catch (Exception e) {
-            getPresentationManager().error(e);
+            orderedFields = r;
         }
-        return getAllFields();
+        return r;
     }
 
     /**Determine if the entity have the order property
@@ -237,6 +431,7 @@ public class Entity extends PMCoreObject {
                 getFields().add(field);
             }
         }
+        reset();
     }
 
     /**Check if there is a Field with an id
@@ -272,6 +467,7 @@ public class Entity extends PMCoreObject {
      */
     public void setClazz(String clazz) {
         this.clazz = clazz;
+        this.entityClass = null;
     }
 
     /**Getter for listfilter
@@ -300,6 +496,7 @@ public class Entity extends PMCoreObject {
      */
     public void setOrder(String order) {
         this.order = order;
+        reset();
     }
 
     /**The name of the parent entity
@@ -359,6 +556,7 @@ public class Entity extends PMCoreObject {
      */
     public void setFields(ArrayList<Field> fields) {
         this.fields = fields;
+        reset();
     }
 
     /**Getter for entity operations
@@ -380,6 +578,7 @@ public class Entity extends PMCoreObject {
      */
     public void setExtendzEntity(Entity extendzEntity) {
         this.extendzEntity = extendzEntity;
+        reset();
     }
 
     /**
@@ -510,6 +709,122 @@ public class Entity extends PMCoreObject {
         return noCount;
     }
 
+    /**
+     * @param keysetPagination the keysetPagination to set
+     */
+    public void setKeysetPagination(Boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    /**
+     * @return true if list pages are read by sort key instead of offset
+     */
+    public Boolean getKeysetPagination() {
+        if (keysetPagination == null) {
+            return false;
+        }
+        return keysetPagination;
+    }
+
+    /**
+     * @param countTtl the countTtl to set
+     */
+    public void setCountTtl(Integer countTtl) {
+        this.countTtl = countTtl;
+    }
+
+    /**
+     * @return the seconds a list total is cached, null for the default
+     */
+    public Integer getCountTtl() {
+        return countTtl;
+    }
+
+    /**
+     * @param deferredCount the deferredCount to set
+     */
+    public void setDeferredCount(Boolean deferredCount) {
+        this.deferredCount = deferredCount;
+    }
+
+    /**
+     * @return true if the list total is read after the page is shown
+     */
+    public Boolean getDeferredCount() {
+        if (deferredCount == null) {
+            return false;
+        }
+        return deferredCount;
+    }
+
+    /**
+     * @param pageCache the pageCache to set
+     */
+    public void setPageCache(Boolean pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * @return true if list pages are kept in the shared page cache
+     */
+    public Boolean getPageCache() {
+        if (pageCache == null) {
+            return false;
+        }
+        return pageCache;
+    }
+
+    /**
+     * @param versionProperty the versionProperty to set
+     */
+    public void setVersionProperty(String versionProperty) {
+        this.versionProperty = versionProperty;
+    }
+
+    /**
+     * @return the version property or null if instances are not versioned
+     */
+    public String getVersionProperty() {
+        return versionProperty;
+    }
+
+    /**
+     * @param idCacheSize the idCacheSize to set
+     */
+    public void setIdCacheSize(Integer idCacheSize) {
+        this.idCacheSize = idCacheSize;
+        this.idCache = null;
+    }
+
+    /**
+     * @return the idCacheSize
+     */
+    public Integer getIdCacheSize() {
+        return idCacheSize;
+    }
+
+    /**
+     * Cache of identifiers by property value for item lookups
+     *
+     * @return The cache or null if the entity does not define "id-cache-size"
+     */
+    public IdentifierCache getIdCache() {
+        if (idCacheSize == null || idCacheSize <= 0) {
+            return null;
+        }
+        IdentifierCache c = idCache;
+        if (c == null) {
+            synchronized (this) {
+                c = idCache;
+                if (c == null) {
+                    c = new IdentifierCache(idCacheSize);
+                    idCache = c;
+                }
+            }
+        }
+        return c;
+    }
+
     /**
      * Looks for an apropiate highlight for this field+instance
      * @param field
@@ -523,6 +838,20 @@ public class Entity extends PMCoreObject {
         return getHighlights().getHighlight(this, field, instance);
     }
 
+    /**
+     * Evaluate the highlights of the given instance for the fields shown by
+     * the given operation, once for the whole row
+     * @param operId The operation id
+     * @param instance The instance
+     * @return The row and column classes
+     */
+    public HighlightRow getHighlightRow(String operId, Object instance) {
+        if (getHighlights() == null) {
+            return HighlightRow.NONE;
+        }
+        return getHighlights().evaluate(this, getLayout(operId), instance);
+    }
+
     /**
      *
      * @return true if the entity is weak
@@ -17,9 +17,14 @@
  */
 package org.jpos.ee.pm.core;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+import org.jpos.util.RowPage;
+
 
 /**
  * @author jpaoletti
@@ -30,12 +35,18 @@ import java.util.Set;
  */
 public class EntityContainer {
 
+    /**Context key prefix of the instance already refreshed in a request*/
+    public static final String PM_REFRESHED = "PM_REFRESHED_";
+
     private String id;
     private String sid;
-    private Entity entity;
+    private volatile Entity entity;
     private PaginatedList list;
-    private Set<Integer> selectedIndexes;
+    private Set<Object> selectedIds;
+    private BitSet selectedRows;
+    private List<Object> selectedRowsPage;
     private EntityInstanceWrapper selected;
+    private Object selectedVersion;
     private boolean selectedNew;
     private EntityFilter filter;
     private EntityContainer owner;
@@ -132,12 +143,76 @@ public class EntityContainer {
     }
 
     /**
+     * Set the selected instance and remember its version, if the entity
+     * defines a version property
      *
      * @param selected
      */
     public void setSelected(EntityInstanceWrapper selected) {
         this.selected = selected;
         setSelectedNew(false);
+        final String versionProperty = (getEntity() == null) ? null : getEntity().getVersionProperty();
+        if (versionProperty != null && selected != null && selected.getInstance() != null) {
+            selectedVersion = PresentationManager.getPm().get(selected.getInstance(), versionProperty);
+        } else {
+            selectedVersion = null;
+        }
+    }
+
+    /**
+     * Synchronize the selected instance with the data source, once per
+     * request. Unless the selected instance is new, it is reloaded only if
+     * its version changed.
+     *
+     * @param ctx The context of the request
+     * @return The fresh selected instance or null if there is none
+     * @throws PMException
+     */
+    public Object refreshSelected(PMContext ctx) throws PMException {
+        final EntityInstanceWrapper origin = getSelected();
+        if (origin == null) {
+            return null;
+        }
+        if (isSelectedNew()) {
+            return origin.getInstance();
+        }
+        final String key = PM_REFRESHED + getId();
+        if (ctx.get(key) == origin) {
+            return origin.getInstance();
+        }
+        final Object entity = ctx.get(PMCoreObject.PM_ENTITY);
+        final Object o;
+        ctx.put(PMCoreObject.PM_ENTITY, getEntity());
+        try {
+            o = getEntity().getDataAccess().refresh(ctx, origin.getInstance(), selectedVersion);
+        } finally {
+            ctx.put(PMCoreObject.PM_ENTITY, entity);
+        }
+        setSelected(new EntityInstanceWrapper(o));
+        ctx.put(key, getSelected());
+        if (o == null) {
+            ctx.getPresentationManager().warn("Fresh instance is null while origin was '" + origin.getInstance() + "'");
+        }
+        return o;
+    }
+
+    /**
+     * @return the version of the selected instance when it was read, null if
+     * unknown
+     */
+    public Object getSelectedVersion() {
+        return selectedVersion;
+    }
+
+    /**
+     * Set the version of the selected instance. Set it to null when the
+     * instance may have changes that are not in the data source, so the next
+     * refresh reloads it.
+     *
+     * @param selectedVersion the version
+     */
+    public void setSelectedVersion(Object selectedVersion) {
+        this.selectedVersion = selectedVersion;
     }
 
     /**
@@ -179,20 +254,112 @@ public class EntityContainer {
     }
 
     /**
-     * @param selectedIndexes the selectedIndexes to set
+     * Key of an item in the selection: its data access identifier or, when
+     * the data access can not identify items, its row in the list. Items
+     * themselves are not kept, the container lives in the session.
+     *
+     * @param ctx The context
+     * @param item The item
+     * @return The key, null if the item has no identifier and is not in the
+     * current page
+     * @throws PMException
      */
-    public void setSelectedIndexes(Set<Integer> selectedIndexes) {
-        this.selectedIndexes = selectedIndexes;
+    public Object getSelectionKey(PMContext ctx, Object item) throws PMException {
+        final Object id = getEntity().getDataAccess().getId(ctx, item);
+        if (id != null || list == null) {
+            return id;
+        }
+        final RowPage<Object> page = list.getContents();
+        for (int i = 0; i < page.size(); i++) {
+            if (page.get(i) == item) {
+                return page.rowOf(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keys of the items selected for "selected" scope operations, in any
+     * page, in selection order
+     *
+     * @return A copy of the selected keys
+     * @see #getSelectionKey(PMContext, Object)
+     */
+    public List<Object> getSelectedIds() {
+        if (selectedIds == null) {
+            return new ArrayList<Object>();
+        }
+        return new ArrayList<Object>(selectedIds);
+    }
+
+    /**
+     * @param key A selection key
+     * @return true if the item of the key is selected
+     */
+    public boolean isSelected(Object key) {
+        return selectedIds != null && selectedIds.contains(key);
+    }
+
+    /**
+     * Selects the item if it was not selected and deselects it otherwise
+     *
+     * @param ctx The context
+     * @param item The item
+     * @return true if the item is now selected
+     * @throws PMException
+     */
+    public boolean toggleSelected(PMContext ctx, Object item) throws PMException {
+        final Object key = getSelectionKey(ctx, item);
+        if (key == null) {
+            return false;
+        }
+        if (selectedIds == null) {
+            selectedIds = new LinkedHashSet<Object>();
+        }
+        selectedRows = null;
+        if (selectedIds.remove(key)) {
+            return false;
+        }
+        selectedIds.add(key);
+        return true;
+    }
+
+    /**
+     * Positions in the current list page of the selected rows. This is only
+     * an index of the selection for the page, rebuilt when the page or the
+     * selection change.
+     *
+     * @param ctx The context
+     * @return The selected rows, indexed from the start of the page
+     * @throws PMException
+     */
+    public BitSet getSelectedRows(PMContext ctx) throws PMException {
+        final RowPage<Object> page = (list == null) ? null : list.getContents();
+        if (selectedRows == null || selectedRowsPage != page) {
+            final BitSet rows = new BitSet();
+            if (page != null && selectedIds != null && !selectedIds.isEmpty()) {
+                final DataAccess dataAccess = getEntity().getDataAccess();
+                for (int i = 0; i < page.size(); i++) {
+                    final Object id = dataAccess.getId(ctx, page.get(i));
+                    if (selectedIds.contains((id == null) ? page.rowOf(i) : id)) {
+                        rows.set(i);
+                    }
+                }
+            }
+            selectedRows = rows;
+            selectedRowsPage = page;
+        }
+        return selectedRows;
     }
 
     /**
-     * @return the selectedIndexes
+     * Deselects every item
      */
-    public Set<Integer> getSelectedIndexes() {
-        if (selectedIndexes == null) {
-            selectedIndexes = new HashSet<Integer>();
+    public void clearSelectedRows() {
+        if (selectedIds != null) {
+            selectedIds.clear();
         }
-        return selectedIndexes;
+        selectedRows = null;
     }
 
     /**
@@ -17,9 +17,11 @@
  */
 package org.jpos.ee.pm.core;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class EntityFilter extends PMCoreObject {
 
@@ -62,6 +64,38 @@ public class EntityFilter extends PMCoreObject {
         this.filterOperations = filterOperations;
     }
 
+    /**
+     * Text that is equal for filters with the same operations and values,
+     * used to cache results of this filter. Values other than strings,
+     * numbers, dates, booleans and enums are only equal to themselves.
+     *
+     * @return The key
+     */
+    public String getKey() {
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Object>> entry : new TreeMap<String, List<Object>>(getFilterValues()).entrySet()) {
+            sb.append(entry.getKey()).append(' ').append(getFilterOperation(entry.getKey()));
+            if (entry.getValue() != null) {
+                for (Object value : entry.getValue()) {
+                    sb.append('\0');
+                    if (value == null || value instanceof String) {
+                        sb.append(value);
+                    } else if (value instanceof Date) {
+                        //Milliseconds, since the text has neither them nor a fixed time zone
+                        sb.append(value.getClass().getName()).append(':').append(((Date) value).getTime());
+                    } else if (value instanceof Number || value instanceof Boolean || value instanceof Enum) {
+                        //The type too, an Integer 1 is not equal to a Long 1
+                        sb.append(value.getClass().getName()).append(':').append(value);
+                    } else {
+                        sb.append(value.getClass().getName()).append('@').append(System.identityHashCode(value));
+                    }
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
     public FilterOperation getFilterOperation(String id) {
         final FilterOperation result = getFilterOperations().get(id);
         if (result != null) {
@@ -0,0 +1,154 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of the loaded entities. Every lookup structure (by id, by
+ * container id and weak entities by owner) is computed once when the registry
+ * is built, so readers never iterate the entity list nor need any lock.
+ * Inheritance (extendz) and weak entities are resolved here too, and field
+ * layouts are compiled, before the registry is published. For that reason
+ * the entities belong to the registry and must not be shared with another
+ * one that may still be in use.
+ *
+ * @author jpaoletti
+ * @see PresentationManager#getEntity(String)
+ */
+public final class EntityRegistry {
+
+    /**An empty registry, useful before the entities are loaded*/
+    public static final EntityRegistry EMPTY = new EntityRegistry(new ArrayList<Entity>());
+    private final List<Entity> entities;
+    private final Map<String, Entity> byId;
+    private final Map<String, Entity> byContainerId;
+    private final Map<String, List<Entity>> weaksByOwner;
+    private final Map<Object, Entity> legacy;
+
+    /**
+     * Builds the registry from the given entities. The order of the list is
+     * preserved as the load order.
+     *
+     * @param loaded Loaded entities
+     */
+    public EntityRegistry(List<Entity> loaded) {
+        final List<Entity> list = new ArrayList<Entity>(loaded);
+        final Map<String, Entity> ids = new HashMap<String, Entity>();
+        final Map<String, Entity> cids = new HashMap<String, Entity>();
+        final Map<String, List<Entity>> weaks = new HashMap<String, List<Entity>>();
+        final Map<Object, Entity> map = new HashMap<Object, Entity>();
+        for (int i = 0; i < list.size(); i++) {
+            final Entity e = list.get(i);
+            ids.put(e.getId(), e);
+            cids.put(EntityContainer.buildId(PresentationManager.HASH, e.getId()), e);
+            map.put(e.getId(), e);
+            map.put(i, e);
+        }
+        for (Entity e : list) {
+            if (e.getExtendz() != null) {
+                e.setExtendzEntity(ids.get(e.getExtendz()));
+            }
+            if (e.isWeak()) {
+                List<Entity> w = weaks.get(e.getOwner().getEntityId());
+                if (w == null) {
+                    w = new ArrayList<Entity>();
+                    weaks.put(e.getOwner().getEntityId(), w);
+                }
+                w.add(e);
+            }
+        }
+        for (Map.Entry<String, List<Entity>> entry : weaks.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        for (Entity e : list) {
+            e.setWeaks(weaks.get(e.getId()));
+        }
+        for (Entity e : list) {
+            e.compile();
+        }
+        this.entities = Collections.unmodifiableList(list);
+        this.byId = ids;
+        this.byContainerId = cids;
+        this.weaksByOwner = weaks;
+        this.legacy = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Return the entity of the given id
+     * @param id Entity id
+     * @return The entity or null if there is no such entity
+     */
+    public Entity getEntity(String id) {
+        if (id == null) {
+            return null;
+        }
+        return byId.get(id);
+    }
+
+    /**
+     * Return the entity for the given container id
+     * @param cid Container id
+     * @return The entity or null if there is no such entity
+     * @see EntityContainer#buildId(String, String)
+     */
+    public Entity getEntityByContainerId(String cid) {
+        if (cid == null) {
+            return null;
+        }
+        return byContainerId.get(cid);
+    }
+
+    /**
+     * Return the list of weak entities of the given entity.
+     * @param ownerId The strong entity id
+     * @return The list of weak entities or null if there is none
+     */
+    public List<Entity> getWeaks(String ownerId) {
+        return weaksByOwner.get(ownerId);
+    }
+
+    /**
+     * Loaded entities in load order
+     * @return An unmodifiable list
+     */
+    public List<Entity> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Entities keyed by id and by load position, as they were historically
+     * exposed by {@link PresentationManager#getEntities()}
+     * @return An unmodifiable map
+     */
+    public Map<Object, Entity> asMap() {
+        return legacy;
+    }
+
+    /**
+     * Number of loaded entities
+     * @return The size
+     */
+    public int size() {
+        return entities.size();
+    }
+}
@@ -18,12 +18,11 @@
 package org.jpos.ee.pm.core;
 
 import java.util.ArrayList;
-import java.util.Properties;
 
 import org.jpos.ee.pm.converter.Converter;
 import org.jpos.ee.pm.converter.ConverterException;
 import org.jpos.ee.pm.converter.Converters;
-import org.jpos.ee.pm.converter.GenericConverter;
+import org.jpos.ee.pm.converter.ShowToStringConverter;
 import org.jpos.ee.pm.validator.Validator;
 
 /**A Field represents a property of the represented entity.
@@ -53,6 +52,7 @@ public class Field extends PMCoreObject {
     private Converters converters;
     private String defaultValue;
     private String align; //left right center          
+    private transient PropertyAccessor accessor;
 
     /**
      * Default constructor
@@ -72,19 +72,27 @@ public class Field extends PMCoreObject {
      * @throws PMException
      */
     public Object visualize(PMContext ctx, Operation operation, Entity entity) throws PMException {
-        debug("Converting [" + operation.getId() + "]" + entity.getId() + "." + getId());
+        return visualize(ctx, operation, entity, getPresentationManager().get(ctx.getEntityInstance(), getProperty()));
+    }
+
+    /**
+     * Visualize the given value of the field, already read from the context
+     * entity instance
+     * @param ctx the context
+     * @param operation The operation
+     * @param entity The entity
+     * @param value The value of the field property
+     * @return The string visualization
+     * @throws PMException
+     * @see PresentationManager#getAll(Object, java.util.List)
+     */
+    public Object visualize(PMContext ctx, Operation operation, Entity entity, Object value) throws PMException {
+        if (getDebug()) {
+            debug("Converting [" + operation.getId() + "]" + entity.getId() + "." + getId());
+        }
         try {
-            Converter c = null;
-            if (getConverters() != null) {
-                c = getConverters().getConverterForOperation(operation.getId());
-            }
-            if (c == null) {
-                c = getDefaultConverter();
-            }
-            final Object instance = ctx.get(PM_ENTITY_INSTANCE);
-            ctx.put(PM_ENTITY_INSTANCE_WRAPPER, new EntityInstanceWrapper(instance));
-            ctx.put(PM_FIELD, this);
-            ctx.put(PM_FIELD_VALUE, getPresentationManager().get(instance,getProperty()));
+            final Converter c = getConverter(operation.getId());
+            prepare(ctx, value);
             return c.visualize(ctx);
         } catch (Exception e) {
             getPresentationManager().error(e);
@@ -93,20 +101,58 @@ public class Field extends PMCoreObject {
     }
 
     /**
-     * Return the default converter if none is defined
+     * Return the converter of this field for the given operation or the
+     * default converter if none is defined
+     *
+     * @param operId The operation id
+     * @return The converter
+     */
+    public Converter getConverter(String operId) {
+        Converter c = null;
+        if (getConverters() != null) {
+            c = getConverters().getConverterForOperation(operId);
+        }
+        if (c == null) {
+            c = getDefaultConverter();
+        }
+        return c;
+    }
+
+    /**
+     * Point the context cursor to this field of the context entity instance,
+     * leaving the context ready for a converter
+     *
+     * @param ctx The context
+     */
+    public void prepare(PMContext ctx) {
+        prepare(ctx, getPresentationManager().get(ctx.getEntityInstance(), getProperty()));
+    }
+
+    /**
+     * Point the context cursor to this field of the context entity instance
+     * with a value already read
+     *
+     * @param ctx The context
+     * @param value The value of the field property
+     */
+    public void prepare(PMContext ctx, Object value) {
+        final ConversionCursor cursor = ctx.getCursor();
+        cursor.moveTo(ctx.getEntityInstance());
+        cursor.cell(this, value);
+    }
+
+    /**
+     * Return the default converter if none is defined. This is the converter
+     * configured in the service or the shared {@link ShowToStringConverter}.
      *
      * @return The converter
      */
     public Converter getDefaultConverter() {
-        if (getPresentationManager().getService().getDefaultConverter() == null) {
-            Converter c = new GenericConverter();
-            Properties properties = new Properties();
-            properties.put("filename", "cfg/converters/show.tostring.converter");
-            c.setProperties(properties);
-            return c;
-        }else{
-            return getPresentationManager().getService().getDefaultConverter();
+        final Converter c = getPresentationManager().getService().getDefaultConverter();
+        if (c == null) {
+            return ShowToStringConverter.INSTANCE;
         }
+        return c;
     }
 
     /**
@@ -152,6 +198,7 @@ public class Field extends PMCoreObject {
      */
     public void setId(String id) {
         this.id = id;
+        this.accessor = null;
     }
 
     /**
@@ -183,16 +230,15 @@ public class Field extends PMCoreObject {
         return display;
     }
 
-    /**Indicates if the field is shown in the given operation id
+    /**Indicates if the field is shown in the given operation id. Ids are
+     * matched as in converters, "bulkedit" does not show "edit" fields.
      *
      * @param operationId  The Operation id
      * @return true if field is displayed on the operation
+     * @see Converters#appliesTo(String, String)
      */
     public boolean shouldDisplay(String operationId) {
-        if (operationId == null || getDisplay() == null) {
-            return false;
-        }
-        return "all".equalsIgnoreCase(getDisplay()) || getDisplay().indexOf(operationId) >= 0;
+        return operationId != null && Converters.appliesTo(getDisplay(), operationId);
     }
 
     /**
@@ -289,5 +335,18 @@ public class Field extends PMCoreObject {
      */
     public void setProperty(String property) {
         this.property = property;
+        this.accessor = null;
+    }
+
+    /**
+     * Compiled accessor for the property of this field
+     * @return The accessor
+     * @see PropertyAccessor
+     */
+    public PropertyAccessor getAccessor() {
+        if (accessor == null) {
+            accessor = PresentationManager.getPm().getAccessor(getProperty());
+        }
+        return accessor;
     }
 }
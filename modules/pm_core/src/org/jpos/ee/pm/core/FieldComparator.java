@@ -18,6 +18,8 @@
 package org.jpos.ee.pm.core;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 /**This class is used to sort fields within the order attribute of Entity
  * @author yero
@@ -27,32 +29,45 @@ import java.util.Comparator;
 public class FieldComparator implements Comparator<Field> {
     /**A space separated string with the fields id */
     private String order;
+    /**Position of each field id in order*/
+    private Map<String, Integer> positions;
     
     /**Constructor with the specified order
      *@param order The order */
     public FieldComparator(String order){
-        this.order = order;
+        setOrder(order);
     }
 
-    /**Compare method.
+    /**Compare method. Fields not present in the order go last.
      * @param o1 First field to compare
      * @param o2 Second field to compare
      * @return The lesser looking at order property
      * */
     public int compare(Field o1, Field o2) {
-        int i = order.indexOf(o1.getId());
-        int j = order.indexOf(o2.getId());
-        if(i==j) return 0;
-        if(i==-1 && j >= 0) return 1;
-        if(j==-1 && i >= 0) return -1;
+        final Integer i = positions.get(o1.getId());
+        final Integer j = positions.get(o2.getId());
+        if (i == null) {
+            return (j == null) ? 0 : 1;
+        }
+        if (j == null) {
+            return -1;
+        }
         return i - j;
     }
 
     /**Setter for order
      * @param order the order to set
      */
-    public void setOrder(String order) {
+    public final void setOrder(String order) {
         this.order = order;
+        this.positions = new HashMap<String, Integer>();
+        if (order != null) {
+            for (String id : order.trim().split("[\\s,]+")) {
+                if (id.length() > 0 && !positions.containsKey(id)) {
+                    positions.put(id, positions.size());
+                }
+            }
+        }
     }
 
     /**Getter for order
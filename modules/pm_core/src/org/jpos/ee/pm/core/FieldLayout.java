@@ -0,0 +1,85 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fields of an entity shown by an operation, in display order and with
+ * inherited fields resolved. Layouts are immutable and built once per
+ * entity and operation.
+ *
+ * @author jpaoletti
+ * @see Entity#getLayout(String)
+ */
+public final class FieldLayout {
+
+    private final String operationId;
+    private final Field[] fields;
+    private final List<Field> list;
+
+    /**
+     * Builds the layout of the given operation from the ordered fields of an
+     * entity.
+     *
+     * @param operationId The operation id
+     * @param ordered Ordered fields of the entity
+     */
+    public FieldLayout(String operationId, List<Field> ordered) {
+        this.operationId = operationId;
+        final List<Field> r = new ArrayList<Field>(ordered.size());
+        for (Field f : ordered) {
+            if (f.shouldDisplay(operationId)) {
+                r.add(f);
+            }
+        }
+        this.fields = r.toArray(new Field[r.size()]);
+        this.list = Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * Displayed fields in order
+     * @return An unmodifiable list
+     */
+    public List<Field> getFields() {
+        return list;
+    }
+
+    /**
+     * Displayed field at the given position
+     * @param i Position
+     * @return The field
+     */
+    public Field getField(int i) {
+        return fields[i];
+    }
+
+    /**
+     * @return Number of displayed fields
+     */
+    public int size() {
+        return fields.length;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.AbstractMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Layouts of an entity by operation id. Layouts not compiled yet are built on
+ * first lookup, so pages can simply use {@code entity.layouts[operation.id]}.
+ *
+ * @author jpaoletti
+ * @see FieldLayout
+ */
+public class FieldLayouts extends AbstractMap<String, FieldLayout> {
+
+    private final Entity entity;
+    private final ConcurrentMap<String, FieldLayout> layouts = new ConcurrentHashMap<String, FieldLayout>();
+
+    public FieldLayouts(Entity entity) {
+        this.entity = entity;
+    }
+
+    @Override
+    public FieldLayout get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        final String operationId = key.toString();
+        FieldLayout layout = layouts.get(operationId);
+        if (layout == null) {
+            layout = new FieldLayout(operationId, entity.orderedFields());
+            final FieldLayout prev = layouts.putIfAbsent(operationId, layout);
+            if (prev != null) {
+                layout = prev;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * A layout exists once it is compiled or if the entity defines the
+     * operation
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null) {
+            return false;
+        }
+        if (layouts.containsKey(key.toString())) {
+            return true;
+        }
+        return entity.getOperations() != null && entity.getOperations().getOperation(key.toString()) != null;
+    }
+
+    @Override
+    public Set<Entry<String, FieldLayout>> entrySet() {
+        return layouts.entrySet();
+    }
+}
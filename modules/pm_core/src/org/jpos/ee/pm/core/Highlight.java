@@ -17,8 +17,10 @@
  */
 package org.jpos.ee.pm.core;
 
+import java.io.Serializable;
+
 /***/
-public class Highlight {
+public class Highlight implements Serializable {
     /***/
     private String field;
     /***/
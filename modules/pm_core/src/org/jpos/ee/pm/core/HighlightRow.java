@@ -0,0 +1,71 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+/**
+ * Highlight classes of one list row: the class of the row and the class of
+ * each displayed column, in layout order. Evaluated once per row by
+ * {@link Highlights#evaluate(Entity, FieldLayout, Object)}.
+ *
+ * @author jpaoletti
+ */
+public final class HighlightRow {
+
+    /**A row without highlights*/
+    public static final HighlightRow NONE = new HighlightRow(null, new String[0]);
+    private final String rowClass;
+    private final String[] cellClasses;
+
+    HighlightRow(String rowClass, String[] cellClasses) {
+        this.rowClass = rowClass;
+        this.cellClasses = cellClasses;
+    }
+
+    /**
+     * @return The css class of the row or an empty string
+     */
+    public String getRowClass() {
+        return (rowClass == null) ? "" : rowClass;
+    }
+
+    /**
+     * @param column The column position in the layout
+     * @return The css class of the cell or an empty string
+     */
+    public String getCellClass(int column) {
+        if (column < 0 || column >= cellClasses.length || cellClasses[column] == null) {
+            return "";
+        }
+        return cellClasses[column];
+    }
+
+    /**
+     * @return true if the row or any of its cells is highlighted
+     */
+    public boolean isHighlighted() {
+        if (rowClass != null) {
+            return true;
+        }
+        for (String c : cellClasses) {
+            if (c != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
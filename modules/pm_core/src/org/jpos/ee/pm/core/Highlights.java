@@ -17,16 +17,27 @@
  */
 package org.jpos.ee.pm.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Encapsulate a list of highlights
+ * Encapsulate a list of highlights.
+ * <p>
+ * Highlights are compiled into rules grouped by field, with the field
+ * property and the css class of each rule resolved, so a list row is
+ * evaluated once reading each highlighted property a single time.
  * 
  * @author jpaoletti
  */
 public class Highlights extends PMCoreObject{
     private static final String INSTANCE = "instance";
+    private static final Object UNREAD = new Object();
     private List<Highlight> highlights;
+    private transient volatile Rules rules;
 
     /**
      * Return the index of the given hightlight in the list
@@ -48,10 +59,13 @@ public class Highlights extends PMCoreObject{
      */
     public Highlight getHighlight(Entity entity, Field field, Object instance){
         if(field==null) return getHighlight(entity, instance);
-        for (Highlight highlight : highlights) {
-            if(!highlight.getScope().equals(INSTANCE)){
-                if(match(instance, field, highlight))
-                    return highlight;
+        final Rule[] fr = getRules(entity).byField.get(field.getId());
+        if (fr != null) {
+            final Object o = read(instance, fr[0].property);
+            for (Rule rule : fr) {
+                if (rule.matches(o)) {
+                    return rule.highlight;
+                }
             }
         }
         return null;
@@ -66,17 +80,70 @@ public class Highlights extends PMCoreObject{
      * @return The Highlinght
      */
     public Highlight getHighlight(Entity entity, Object instance){
-        for (Highlight highlight : highlights) {
-            if(highlight.getScope().equals(INSTANCE)){
-                for (Field field : entity.getOrderedFields()) {
-                    if(match(instance, field, highlight))
-                        return highlight;
+        final Rules r = getRules(entity);
+        final Rule rule = matchInstance(r, instance, newValues(r));
+        return (rule == null) ? null : rule.highlight;
+    }
+
+    /**
+     * Evaluate every highlight against the given instance at once.
+     *
+     * @param entity The entity
+     * @param layout The displayed fields
+     * @param instance The instance
+     * @return The row and column classes
+     */
+    public HighlightRow evaluate(Entity entity, FieldLayout layout, Object instance) {
+        final Rules r = getRules(entity);
+        if (r.empty) {
+            return HighlightRow.NONE;
+        }
+        final Object[] values = newValues(r);
+        final Rule ir = matchInstance(r, instance, values);
+        final String[] cells = new String[layout.size()];
+        for (int i = 0; i < cells.length; i++) {
+            final Rule[] fr = r.byField.get(layout.getField(i).getId());
+            if (fr != null) {
+                final Object o = value(values, fr[0], instance);
+                for (Rule rule : fr) {
+                    if (rule.matches(o)) {
+                        cells[i] = rule.cssClass;
+                        break;
+                    }
                 }
             }
         }
+        return new HighlightRow((ir == null) ? null : ir.cssClass, cells);
+    }
+
+    private Rule matchInstance(Rules r, Object instance, Object[] values) {
+        for (Rule rule : r.instance) {
+            if (rule.matches(value(values, rule, instance))) {
+                return rule;
+            }
+        }
         return null;
     }
 
+    private Object[] newValues(Rules r) {
+        final Object[] values = new Object[r.properties.length];
+        Arrays.fill(values, UNREAD);
+        return values;
+    }
+
+    private Object value(Object[] values, Rule rule, Object instance) {
+        Object o = values[rule.slot];
+        if (o == UNREAD) {
+            o = read(instance, rule.property);
+            values[rule.slot] = o;
+        }
+        return o;
+    }
+
+    private Object read(Object instance, String property) {
+        return getPresentationManager().get(instance, property);
+    }
+
     /**
      * Indicate if the field of the given instance matches with the given
      * highlight
@@ -94,11 +161,29 @@ public class Highlights extends PMCoreObject{
         return false;
     }
 
+    /**
+     * Compile the highlights of the given entity
+     * @param entity The entity
+     */
+    public void compile(Entity entity) {
+        rules = new Rules(entity, highlights);
+    }
+
+    private Rules getRules(Entity entity) {
+        Rules r = rules;
+        if (r == null || r.entity != entity) {
+            r = new Rules(entity, highlights);
+            rules = r;
+        }
+        return r;
+    }
+
     /**
      * @param highlights the highlights to set
      */
     public void setHighlights(List<Highlight> highlights) {
         this.highlights = highlights;
+        this.rules = null;
     }
 
     /**
@@ -107,4 +192,84 @@ public class Highlights extends PMCoreObject{
     public List<Highlight> getHighlights() {
         return highlights;
     }
+
+    /**
+     * A highlight bound to the property it reads
+     */
+    private static final class Rule {
+
+        private final Highlight highlight;
+        private final String property;
+        private final String value;
+        private final String cssClass;
+        private final int slot;
+
+        Rule(Highlight highlight, String property, int index, int slot) {
+            this.highlight = highlight;
+            this.property = property;
+            this.value = highlight.getValue();
+            this.cssClass = "pm_hl_" + index;
+            this.slot = slot;
+        }
+
+        boolean matches(Object o) {
+            if (o == null || value == null) {
+                return false;
+            }
+            return (o instanceof String) ? value.equals(o) : value.equals(o.toString());
+        }
+    }
+
+    /**
+     * Instance rules in definition order and property rules grouped by
+     * field id
+     */
+    private static final class Rules {
+
+        private final Entity entity;
+        private final List<Rule> instance = new ArrayList<Rule>();
+        private final Map<String, Rule[]> byField = new HashMap<String, Rule[]>();
+        private final String[] properties;
+        private final boolean empty;
+
+        Rules(Entity entity, List<Highlight> highlights) {
+            this.entity = entity;
+            final Map<String, Field> fields = new HashMap<String, Field>();
+            for (Field f : entity.getOrderedFields()) {
+                fields.put(f.getId(), f);
+            }
+            final Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+            final Map<String, List<Rule>> grouped = new HashMap<String, List<Rule>>();
+            if (highlights != null) {
+                int index = 0;
+                for (Highlight h : highlights) {
+                    final Field f = fields.get(h.getField());
+                    if (f != null) {
+                        Integer slot = slots.get(f.getId());
+                        if (slot == null) {
+                            slot = slots.size();
+                            slots.put(f.getId(), slot);
+                        }
+                        final Rule rule = new Rule(h, f.getProperty(), index, slot);
+                        if (h.getScope().equals(INSTANCE)) {
+                            instance.add(rule);
+                        } else {
+                            List<Rule> l = grouped.get(f.getId());
+                            if (l == null) {
+                                l = new ArrayList<Rule>();
+                                grouped.put(f.getId(), l);
+                            }
+                            l.add(rule);
+                        }
+                    }
+                    index++;
+                }
+            }
+            for (Map.Entry<String, List<Rule>> e : grouped.entrySet()) {
+                byField.put(e.getKey(), e.getValue().toArray(new Rule[e.getValue().size()]));
+            }
+            this.properties = slots.keySet().toArray(new String[slots.size()]);
+            this.empty = instance.isEmpty() && byField.isEmpty();
+        }
+    }
 }
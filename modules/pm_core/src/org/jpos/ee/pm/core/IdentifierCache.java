@@ -0,0 +1,121 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded map from a property value of an entity to the identifier of the
+ * instance that has it, so repeated lookups by a unique property become
+ * lookups by identifier. The least recently used values are dropped when
+ * full. Data accesses must check that the instance read by identifier still
+ * has the value, since it may have been changed by others.
+ *
+ * @author jpaoletti
+ * @see Entity#getIdCache()
+ */
+public class IdentifierCache {
+
+    private final Map<String, Object> ids;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxSize Maximum number of kept values
+     */
+    public IdentifierCache(final int maxSize) {
+        ids = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param property The property
+     * @param value The property value
+     * @return The identifier or null if unknown
+     */
+    public Object get(String property, String value) {
+        final Object id;
+        synchronized (ids) {
+            id = ids.get(key(property, value));
+        }
+        if (id == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return id;
+    }
+
+    /**
+     * @param property The property
+     * @param value The property value
+     * @param id The identifier of the instance with that value
+     */
+    public void put(String property, String value, Object id) {
+        if (id != null) {
+            synchronized (ids) {
+                ids.put(key(property, value), id);
+            }
+        }
+    }
+
+    /**
+     * @param property The property
+     * @param value The property value
+     */
+    public void remove(String property, String value) {
+        synchronized (ids) {
+            ids.remove(key(property, value));
+        }
+    }
+
+    /**
+     * Drop every identifier
+     */
+    public void clear() {
+        synchronized (ids) {
+            ids.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private String key(String property, String value) {
+        return property + '\0' + value;
+    }
+
+    @Override
+    public String toString() {
+        return "IdentifierCache [hits=" + hits + ", misses=" + misses + "]";
+    }
+}
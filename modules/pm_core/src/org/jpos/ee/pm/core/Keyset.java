@@ -0,0 +1,157 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.io.Serializable;
+
+/**
+ * Sort key values (sort field value and identifier) of the first and last
+ * rows of a list page. With them, the next, previous or same page is read
+ * with a range predicate instead of skipping every earlier row.
+ *
+ * @author jpaoletti
+ * @see Entity#getKeysetPagination()
+ */
+public class Keyset implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    /**Context key of the {@link Seek} to apply to the next list*/
+    public static final String PM_LIST_SEEK = "PM_LIST_SEEK";
+    /**Context key where the data access leaves the keyset of the listed page*/
+    public static final String PM_LIST_KEYSET = "PM_LIST_KEYSET";
+    private int page;
+    private int rowsPerPage;
+    private final String order;
+    private final boolean desc;
+    private final Object firstValue;
+    private final Object firstId;
+    private final Object lastValue;
+    private final Object lastId;
+
+    /**
+     * @param order Sort field id, null when sorted only by identifier
+     * @param desc Descending order
+     * @param firstValue Sort value of the first row
+     * @param firstId Identifier of the first row
+     * @param lastValue Sort value of the last row
+     * @param lastId Identifier of the last row
+     */
+    public Keyset(String order, boolean desc, Object firstValue, Object firstId, Object lastValue, Object lastId) {
+        this.order = order;
+        this.desc = desc;
+        this.firstValue = firstValue;
+        this.firstId = firstId;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Return the seek that reads the given page from this one, or null if it
+     * must be read by offset: first page, other order or page size, or a page
+     * that is not next to this one.
+     *
+     * @param target The page to read
+     * @param order The current sort field id
+     * @param desc The current direction
+     * @param rowsPerPage The current page size
+     * @return The seek or null
+     */
+    public Seek seek(int target, String order, boolean desc, int rowsPerPage) {
+        if (target <= 1 || this.desc != desc || this.rowsPerPage != rowsPerPage || !same(this.order, order)) {
+            return null;
+        }
+        if (target == page + 1) {
+            return new Seek(Seek.NEXT, lastValue, lastId);
+        }
+        if (target == page - 1) {
+            return new Seek(Seek.PREVIOUS, firstValue, firstId);
+        }
+        if (target == page) {
+            return new Seek(Seek.SAME, firstValue, firstId);
+        }
+        return null;
+    }
+
+    private static boolean same(String a, String b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getRowsPerPage() {
+        return rowsPerPage;
+    }
+
+    public void setRowsPerPage(int rowsPerPage) {
+        this.rowsPerPage = rowsPerPage;
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    public boolean isDesc() {
+        return desc;
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset [page=" + page + ", order=" + order + ", desc=" + desc + ", first=" + firstValue + "/" + firstId + ", last=" + lastValue + "/" + lastId + "]";
+    }
+
+    /**
+     * Where a page starts, relative to a row of the current page
+     */
+    public static class Seek implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        /**Rows after the last row*/
+        public static final int NEXT = 1;
+        /**Rows before the first row, read backwards*/
+        public static final int PREVIOUS = -1;
+        /**Rows from the first row, inclusive*/
+        public static final int SAME = 0;
+        private final int direction;
+        private final Object value;
+        private final Object id;
+
+        public Seek(int direction, Object value, Object id) {
+            this.direction = direction;
+            this.value = value;
+            this.id = id;
+        }
+
+        public int getDirection() {
+            return direction;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Object getId() {
+            return id;
+        }
+    }
+}
@@ -19,7 +19,6 @@ package org.jpos.ee.pm.core;
 
 import java.util.List;
 import org.jpos.ee.Constants;
-import org.jpos.util.DisplacedList;
 
 /**
  *
@@ -53,27 +52,135 @@ public class ListManager {
         Long total = null;
 
         try {
-            if (isPaginable(ctx)) {
+            if (isPaginable(ctx) && ctx.getEntity().getKeysetPagination()) {
+                contents = getKeysetPage(ctx, pmlist);
+            } else if (isPaginable(ctx)) {
                 contents = (List<Object>) ctx.getEntity().getList(ctx, ctx.getEntityContainer().getFilter(), pmlist.from(), pmlist.rpp());
             } else {
                 contents = (List<Object>) ctx.getEntity().getList(ctx, ctx.getEntityContainer().getFilter(), null, null);
             }
-            if (!ctx.getEntity().getNoCount()) {
-                total = ctx.getEntity().getDataAccess().count(ctx);
-            }
+            total = getTotal(ctx, pmlist);
         } catch (Exception e) {
             ctx.getPresentationManager().error(e);
             throw new PMException("pm.operation.cant.load.list");
         }
-        ctx.getPresentationManager().debug(this, "List Contents: " + contents);
+        ctx.getPresentationManager().debug(this, "List Contents: ", contents);
         ctx.getEntityContainer().setList(pmlist);
-        pmlist.setContents(new DisplacedList<Object>(contents));
+        pmlist.setContents(contents);
         pmlist.setTotal(total);
-        ctx.getPresentationManager().debug(this, "Resulting list: " + pmlist);
+        ctx.getPresentationManager().debug(this, "Resulting list: ", pmlist);
         pmlist.setRowsPerPage(pmlist.rpp());
         prepareParameters(ctx, operations);
     }
 
+    /**
+     * Read the list page seeking from the keys of the previous page when the
+     * requested page is next to it, and by offset otherwise. The keys of the
+     * read page are kept in the list for the next request.
+     */
+    private List<Object> getKeysetPage(PMContext ctx, PaginatedList pmlist) throws PMException {
+        final Keyset previous = pmlist.getKeyset();
+        final Keyset.Seek seek = (previous == null) ? null : previous.seek(pmlist.getPage(), pmlist.getOrder(), pmlist.isDesc(), pmlist.rpp());
+        ctx.put(Keyset.PM_LIST_SEEK, seek);
+        ctx.put(Keyset.PM_LIST_KEYSET, null);
+        try {
+            final List<Object> contents = (List<Object>) ctx.getEntity().getList(ctx, ctx.getEntityContainer().getFilter(), (seek == null) ? pmlist.from() : null, pmlist.rpp());
+            final Keyset keyset = (Keyset) ctx.get(Keyset.PM_LIST_KEYSET);
+            if (keyset != null) {
+                keyset.setPage(pmlist.getPage());
+                keyset.setRowsPerPage(pmlist.rpp());
+            }
+            pmlist.setKeyset(keyset);
+            ctx.getPresentationManager().debug(this, "Keyset: ", keyset);
+            return contents;
+        } finally {
+            ctx.put(Keyset.PM_LIST_SEEK, null);
+            ctx.put(Keyset.PM_LIST_KEYSET, null);
+        }
+    }
+
+    /**
+     * Total for the list page. It is null when the entity has no count or
+     * uses a deferred count that is neither cached nor known by the list for
+     * the same filter, in which case the list is marked to request it apart.
+     *
+     * @param ctx The context
+     * @param pmlist The list
+     * @return The total or null
+     * @throws PMException
+     */
+    public Long getTotal(PMContext ctx, PaginatedList pmlist) throws PMException {
+        pmlist.setCountPending(false);
+        final Entity entity = ctx.getEntity();
+        if (entity.getNoCount()) {
+            return null;
+        }
+        if (entity.getDeferredCount()) {
+            final String key = getCountKey(ctx);
+            final CountCache cache = ctx.getPresentationManager().getCountCache();
+            Long total = (key == null) ? null : cache.get(entity.getId(), key);
+            if (total == null && key != null) {
+                total = pmlist.getCountedTotal(key, cache.getVersion(entity.getId()));
+            }
+            pmlist.setCountPending(total == null);
+            return total;
+        }
+        return count(ctx);
+    }
+
+    /**
+     * Count the items of the entity that match the container filter. The
+     * total is reused for the entity "count-ttl" seconds unless an
+     * instance of the entity is written.
+     *
+     * @param ctx The context
+     * @return The total
+     * @throws PMException
+     */
+    public Long count(PMContext ctx) throws PMException {
+        final Entity entity = ctx.getEntity();
+        final int ttl = getCountTtl(ctx);
+        final String key = (ttl > 0) ? getCountKey(ctx) : null;
+        if (key == null) {
+            return entity.getDataAccess().count(ctx);
+        }
+        final CountCache cache = ctx.getPresentationManager().getCountCache();
+        Long total = cache.get(entity.getId(), key);
+        if (total == null) {
+            final long version = cache.getVersion(entity.getId());
+            total = entity.getDataAccess().count(ctx);
+            cache.put(entity.getId(), key, total, ttl, version);
+        }
+        return total;
+    }
+
+    /**
+     * Count the items of the list apart from its page, for deferred counts.
+     * The list keeps the total and offers it again for the same filter until
+     * an instance of the entity is written, even when totals are not cached.
+     *
+     * @param ctx The context
+     * @param pmlist The list
+     * @return The total
+     * @throws PMException
+     */
+    public Long count(PMContext ctx, PaginatedList pmlist) throws PMException {
+        final String key = getCountKey(ctx);
+        final long version = ctx.getPresentationManager().getCountCache().getVersion(ctx.getEntity().getId());
+        final Long total = count(ctx);
+        pmlist.setCountedTotal(total, key, version);
+        return total;
+    }
+
+    private int getCountTtl(PMContext ctx) {
+        final Integer ttl = ctx.getEntity().getCountTtl();
+        return (ttl != null) ? ttl : ctx.getPresentationManager().getCountTtl();
+    }
+
+    private String getCountKey(PMContext ctx) {
+        return ctx.getEntity().getCacheKey(ctx, ctx.getEntityContainer().getFilter());
+    }
+
     public boolean isPaginable(PMContext ctx) {
         return ctx.getOperation().getConfig("paginable", "true").compareTo("true") == 0;
     }
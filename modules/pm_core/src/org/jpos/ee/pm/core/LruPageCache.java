@@ -0,0 +1,152 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jpos.core.Configurable;
+import org.jpos.core.Configuration;
+
+/**
+ * Page cache bounded by number of pages that drops the least recently used
+ * page when full. The size is taken from the "page-cache-size" configuration
+ * property.
+ *
+ * @author jpaoletti
+ */
+public class LruPageCache implements PageCache, Configurable {
+
+    public static final int DEFAULT_SIZE = 1000;
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile int maxSize = DEFAULT_SIZE;
+    private final Map<String, Page> pages = new LinkedHashMap<String, Page>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Page> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public void setConfiguration(Configuration cfg) {
+        maxSize = cfg.getInt("page-cache-size", DEFAULT_SIZE);
+    }
+
+    public List<Object> get(String entityId, String key) {
+        final Page page;
+        synchronized (pages) {
+            page = pages.get(entityId + '/' + key);
+        }
+        if (page == null || page.version != getVersion(entityId)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return page.ids;
+    }
+
+    public long getVersion(String entityId) {
+        return getCounter(entityId).get();
+    }
+
+    public void put(String entityId, String key, List<Object> ids, long version) {
+        if (ids == null || maxSize <= 0) {
+            return;
+        }
+        final Page page = new Page(entityId, Collections.unmodifiableList(new ArrayList<Object>(ids)), version);
+        synchronized (pages) {
+            if (getVersion(entityId) == version) {
+                pages.put(entityId + '/' + key, page);
+            }
+        }
+    }
+
+    public void invalidate(String entityId) {
+        synchronized (pages) {
+            getCounter(entityId).incrementAndGet();
+            for (Iterator<Page> it = pages.values().iterator(); it.hasNext();) {
+                if (it.next().entityId.equals(entityId)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (pages) {
+            for (AtomicLong version : versions.values()) {
+                version.incrementAndGet();
+            }
+            pages.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    private AtomicLong getCounter(String entityId) {
+        AtomicLong version = versions.get(entityId);
+        if (version == null) {
+            version = new AtomicLong();
+            final AtomicLong previous = versions.putIfAbsent(entityId, version);
+            if (previous != null) {
+                version = previous;
+            }
+        }
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "LruPageCache [size=" + getSize() + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    private static class Page {
+
+        private final String entityId;
+        private final List<Object> ids;
+        private final long version;
+
+        private Page(String entityId, List<Object> ids, long version) {
+            this.entityId = entityId;
+            this.ids = ids;
+            this.version = version;
+        }
+    }
+}
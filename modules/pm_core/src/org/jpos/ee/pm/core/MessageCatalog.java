@@ -0,0 +1,234 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of internationalized messages. For each locale the resource bundle
+ * is looked up once and every message is parsed once into a template of
+ * literal parts and {n} parameters, so formatting a message is a single
+ * append pass with no regular expressions.
+ *
+ * @author jpaoletti
+ * @see PresentationManager#getMessage(String, Object[])
+ */
+public class MessageCatalog {
+
+    /**Requested locales remembered, clients may send any locale*/
+    private static final int MAX_LOCALES = 64;
+    /**Undefined keys remembered per bundle, keys may come from requests*/
+    private static final int MAX_MISSING = 1024;
+    private final String baseName;
+    /**Messages by bundle locale*/
+    private final ConcurrentMap<Locale, Messages> bundles = new ConcurrentHashMap<Locale, Messages>();
+    /**Messages by requested locale*/
+    private final ConcurrentMap<Locale, Messages> locales = new ConcurrentHashMap<Locale, Messages>();
+
+    /**
+     * @param baseName Resource bundle base name
+     */
+    public MessageCatalog(String baseName) {
+        this.baseName = baseName;
+    }
+
+    /**
+     * Returns the message for the given key with the parameters replaced.
+     * If the key is not defined, the key itself is returned.
+     *
+     * @param locale The locale
+     * @param key The message key
+     * @param params Parameters for {0}, {1}, ...
+     * @return The message
+     */
+    public String getMessage(Locale locale, String key, Object... params) {
+        final MessageTemplate t = getMessages(locale).get(key);
+        if (t == null) {
+            return key;
+        }
+        return t.format(params);
+    }
+
+    /**
+     * Parse every message of the given locale
+     * @param locale The locale
+     * @return The number of messages
+     */
+    public int warm(Locale locale) {
+        return getMessages(locale).warm();
+    }
+
+    /**
+     * Forget all the cached messages, bundles are looked up again on next use
+     */
+    public void clear() {
+        locales.clear();
+        bundles.clear();
+        ResourceBundle.clearCache();
+    }
+
+    /**
+     * Messages are kept once per bundle, requested locales are only aliases
+     * of them and a bounded number of them is remembered
+     */
+    private Messages getMessages(Locale locale) {
+        Messages m = locales.get(locale);
+        if (m == null) {
+            ResourceBundle bundle = null;
+            try {
+                bundle = ResourceBundle.getBundle(baseName, locale);
+            } catch (MissingResourceException e) {
+            }
+            final Locale key = (bundle == null) ? Locale.ROOT : bundle.getLocale();
+            m = bundles.get(key);
+            if (m == null) {
+                m = new Messages(bundle);
+                final Messages prev = bundles.putIfAbsent(key, m);
+                if (prev != null) {
+                    m = prev;
+                }
+            }
+            if (locales.size() < MAX_LOCALES) {
+                locales.putIfAbsent(locale, m);
+            }
+        }
+        return m;
+    }
+
+    private class Messages {
+
+        private final ResourceBundle bundle;
+        private final ConcurrentMap<String, MessageTemplate> templates = new ConcurrentHashMap<String, MessageTemplate>();
+        private final AtomicInteger missing = new AtomicInteger();
+
+        Messages(ResourceBundle bundle) {
+            this.bundle = bundle;
+        }
+
+        MessageTemplate get(String key) {
+            if (key == null) {
+                return null;
+            }
+            MessageTemplate t = templates.get(key);
+            if (t == null) {
+                t = compile(key);
+                if (t != MessageTemplate.MISSING || missing.incrementAndGet() <= MAX_MISSING) {
+                    templates.put(key, t);
+                }
+            }
+            return (t == MessageTemplate.MISSING) ? null : t;
+        }
+
+        int warm() {
+            if (bundle == null) {
+                return 0;
+            }
+            int n = 0;
+            final Enumeration<String> keys = bundle.getKeys();
+            while (keys.hasMoreElements()) {
+                if (get(keys.nextElement()) != null) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        private MessageTemplate compile(String key) {
+            if (bundle == null) {
+                return MessageTemplate.MISSING;
+            }
+            try {
+                return new MessageTemplate(bundle.getString(key));
+            } catch (MissingResourceException e) {
+                return MessageTemplate.MISSING;
+            }
+        }
+    }
+
+    /**
+     * A message split in literal parts and parameter indexes
+     */
+    static final class MessageTemplate {
+
+        static final MessageTemplate MISSING = new MessageTemplate("");
+        private final String text;
+        /** Literal parts, one more than the parameters */
+        private final String[] literals;
+        private final int[] params;
+
+        MessageTemplate(String text) {
+            this.text = text;
+            final List<String> l = new ArrayList<String>();
+            final List<Integer> p = new ArrayList<Integer>();
+            int start = 0;
+            int i = text.indexOf('{');
+            while (i >= 0) {
+                int j = i + 1;
+                while (j < text.length() && Character.isDigit(text.charAt(j))) {
+                    j++;
+                }
+                if (j > i + 1 && j < text.length() && text.charAt(j) == '}') {
+                    l.add(text.substring(start, i));
+                    p.add(Integer.valueOf(text.substring(i + 1, j)));
+                    start = j + 1;
+                    i = text.indexOf('{', start);
+                } else {
+                    i = text.indexOf('{', i + 1);
+                }
+            }
+            l.add(text.substring(start));
+            literals = l.toArray(new String[l.size()]);
+            params = new int[p.size()];
+            for (int k = 0; k < params.length; k++) {
+                params[k] = p.get(k);
+            }
+        }
+
+        /**
+         * Replace the parameters. Placeholders without a matching parameter
+         * are left as they are.
+         */
+        String format(Object[] values) {
+            if (params.length == 0 || values == null) {
+                return text;
+            }
+            final StringBuilder sb = new StringBuilder(text.length() + 16 * params.length);
+            for (int k = 0; k < params.length; k++) {
+                sb.append(literals[k]);
+                final int n = params[k];
+                if (n < values.length) {
+                    if (values[n] != null) {
+                        sb.append(values[n]);
+                    }
+                } else {
+                    sb.append('{').append(n).append('}');
+                }
+            }
+            sb.append(literals[params.length]);
+            return sb.toString();
+        }
+    }
+}
@@ -31,7 +31,7 @@ public class Operations extends PMCoreObject {
     /**The operation list*/
     private List<Operation> operations;
     /**Optimization*/
-    private Map<String, Operations> opsmap;
+    private transient Map<String, Operations> opsmap;
 
     /**Returns the operation of the given id or a new default operation
      * @param id The id
@@ -18,7 +18,9 @@
 package org.jpos.ee.pm.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.jpos.ee.pm.security.core.PMSecurityUser;
 
 import org.jpos.transaction.Context;
@@ -27,11 +29,33 @@ import org.jpos.util.Log;
 /**
  * An extension of the org.jpos.transaction.Context class with some helpers
  * for PM.
+ *
+ * The keys used on every converted cell (field, field value, entity instance,
+ * instance wrapper and extra data) are kept in fixed slots instead of the
+ * context map; {@link #get(Object)} and {@link #put(Object, Object)} resolve
+ * them transparently. Request parameters are kept in their own map.
  */
 public class PMContext extends Context {
 
     private String sessionId;
     public static final String PM_ERRORS = "PM_ERRORS";
+    public static final String PARAM_PREFIX = "param_";
+    /** Keys stored in slots, the index is the slot */
+    private static final String[] SLOT_KEYS = {
+        PMCoreObject.PM_FIELD,
+        PMCoreObject.PM_FIELD_VALUE,
+        PMCoreObject.PM_ENTITY_INSTANCE,
+        PMCoreObject.PM_ENTITY_INSTANCE_WRAPPER,
+        PMCoreObject.PM_EXTRA_DATA
+    };
+    private static final int FIELD = 0;
+    private static final int FIELD_VALUE = 1;
+    private static final int ENTITY_INSTANCE = 2;
+    private static final int ENTITY_INSTANCE_WRAPPER = 3;
+    private static final int EXTRA_DATA = 4;
+    private final Object[] slots = new Object[SLOT_KEYS.length];
+    private final Map<String, Object> parameters = new HashMap<String, Object>();
+    private ConversionCursor cursor;
 
     public PMContext(String sessionId) {
         this.sessionId = sessionId;
@@ -42,6 +66,145 @@ public class PMContext extends Context {
         this("");
     }
 
+    private static int slot(Object key) {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            if (SLOT_KEYS[i] == key) {
+                return i;
+            }
+        }
+        if (key instanceof String) {
+            for (int i = 0; i < SLOT_KEYS.length; i++) {
+                if (SLOT_KEYS[i].equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        final int i = slot(key);
+        if (i >= 0) {
+            slots[i] = value;
+        } else if (key instanceof String && ((String) key).startsWith(PARAM_PREFIX)) {
+            parameters.put(((String) key).substring(PARAM_PREFIX.length()), value);
+        } else {
+            super.put(key, value);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value, boolean persist) {
+        if (slot(key) >= 0) {
+            put(key, value);
+        } else {
+            super.put(key, value, persist);
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        final int i = slot(key);
+        if (i >= 0) {
+            return slots[i];
+        }
+        final Object v = super.get(key);
+        if (v == null && key instanceof String && ((String) key).startsWith(PARAM_PREFIX)) {
+            return parameters.get(((String) key).substring(PARAM_PREFIX.length()));
+        }
+        return v;
+    }
+
+    @Override
+    public Object get(Object key, Object defValue) {
+        final Object v = get(key);
+        return (v != null) ? v : defValue;
+    }
+
+    @Override
+    public String getString(Object key) {
+        return (String) get(key);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        final int i = slot(key);
+        if (i >= 0) {
+            final Object v = slots[i];
+            slots[i] = null;
+            return v;
+        }
+        return super.remove(key);
+    }
+
+    /**
+     * @return The field being converted
+     */
+    public Field getField() {
+        return (Field) slots[FIELD];
+    }
+
+    public void setField(Field field) {
+        slots[FIELD] = field;
+    }
+
+    /**
+     * @return The value being converted
+     */
+    public Object getFieldValue() {
+        return slots[FIELD_VALUE];
+    }
+
+    public void setFieldValue(Object value) {
+        slots[FIELD_VALUE] = value;
+    }
+
+    /**
+     * @return The entity instance being converted
+     */
+    public Object getEntityInstance() {
+        return slots[ENTITY_INSTANCE];
+    }
+
+    public void setEntityInstance(Object instance) {
+        slots[ENTITY_INSTANCE] = instance;
+    }
+
+    /**
+     * @return The wrapper of the entity instance being converted
+     */
+    public EntityInstanceWrapper getEntityInstanceWrapper() {
+        return (EntityInstanceWrapper) slots[ENTITY_INSTANCE_WRAPPER];
+    }
+
+    public void setEntityInstanceWrapper(EntityInstanceWrapper wrapper) {
+        slots[ENTITY_INSTANCE_WRAPPER] = wrapper;
+    }
+
+    /**
+     * @return Extra data for the converter
+     */
+    public Object getExtraData() {
+        return slots[EXTRA_DATA];
+    }
+
+    public void setExtraData(Object extra) {
+        slots[EXTRA_DATA] = extra;
+    }
+
+    /**
+     * Getter for the conversion cursor of this context, created on first use
+     * and reused for every cell converted with this context.
+     * @return The cursor
+     */
+    public ConversionCursor getCursor() {
+        if (cursor == null) {
+            cursor = new ConversionCursor(this);
+        }
+        return cursor;
+    }
+
     /**
      * @return the errors
      */
@@ -221,8 +384,17 @@ public class PMContext extends Context {
         return (getUser() != null);
     }
 
+    /**
+     * Set a request parameter
+     * @param paramid The parameter name
+     * @param value The value, a String or String[]
+     */
+    public void setParameter(String paramid, Object value) {
+        parameters.put(paramid, value);
+    }
+
     public Object getParameter(String paramid) {
-        final Object v = get("param_" + paramid);
+        final Object v = parameters.get(paramid);
         if (v == null) {
             return null;
         } else {
@@ -239,7 +411,7 @@ public class PMContext extends Context {
     }
 
     public Object[] getParameters(String paramid) {
-        return (Object[]) get("param_" + paramid);
+        return (Object[]) parameters.get(paramid);
     }
 
     /**
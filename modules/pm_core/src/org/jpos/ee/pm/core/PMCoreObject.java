@@ -17,13 +17,14 @@
  */
 package org.jpos.ee.pm.core;
 
+import java.io.Serializable;
 import org.jpos.util.Log;
 
 /**This is the superclass of all the core objects of Presentation Manager and it provides some
  * helpers.
  * @author J.Paoletti jeronimo.paoletti@gmail.com
  * */
-public abstract class PMCoreObject {
+public abstract class PMCoreObject implements Serializable {
     public static final String ENTITY = "entity";
     public static final String PM_OPERATION = "PM_OPERATION";
     public static final String PM_ENTITY_CONTAINER = "PM_ENTITY_CONTAINER";
@@ -19,8 +19,8 @@ package org.jpos.ee.pm.core;
 
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jpos.ee.pm.menu.Menu;
 import org.jpos.ee.pm.security.core.PMSecurityUser;
 import org.jpos.transaction.Context;
@@ -33,11 +33,19 @@ public class PMSession extends Context{
     private String sessionId;
     private PMSecurityUser user;
     private Menu menu;
-    private final Map<String,EntityContainer> containers = new HashMap<String, EntityContainer>();
-    private Date lastAccess;
+    private final Map<String,EntityContainer> containers = new ConcurrentHashMap<String, EntityContainer>();
+    private volatile long lastAccessTime;
     
     public PMSession(String id) {
         this.sessionId = id;
+        touch();
+    }
+
+    /**
+     * Updates the last access to now
+     */
+    public final void touch() {
+        lastAccessTime = System.currentTimeMillis();
     }
 
     public Collection<EntityContainer> getContainers(){
@@ -45,7 +53,11 @@ public class PMSession extends Context{
     }
 
     public void setContainer(String entityId, EntityContainer container){
-        containers.put(entityId, container);
+        if (container == null) {
+            containers.remove(entityId);
+        } else {
+            containers.put(entityId, container);
+        }
     }
 
     public EntityContainer getContainer(String entityId){
@@ -77,11 +89,15 @@ public class PMSession extends Context{
     }
 
     public Date getLastAccess() {
-        return lastAccess;
+        return new Date(lastAccessTime);
     }
 
     public void setLastAccess(Date lastAccess) {
-        this.lastAccess = lastAccess;
+        this.lastAccessTime = lastAccess.getTime();
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
     }
 
 }
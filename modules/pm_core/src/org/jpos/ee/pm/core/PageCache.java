@@ -0,0 +1,87 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.List;
+
+/**
+ * Cache of list pages shared by every session. A page is kept as the
+ * identifiers of its items, which are read again by identifier when the page
+ * is used, so cached pages never show old values.
+ * <br/>
+ * Each entity has a version that is increased when one of its instances is
+ * written. A page is stored with the version read before listing, so a page
+ * listed while a write was committed is never kept.
+ * <br/>
+ * The implementation is defined with the "page-cache" configuration property.
+ *
+ * @author jpaoletti
+ * @see LruPageCache
+ */
+public interface PageCache {
+
+    /**
+     * Return the identifiers of the cached page, or null if there is none
+     *
+     * @param entityId The entity id
+     * @param key The page key
+     * @return The identifiers or null
+     */
+    public List<Object> get(String entityId, String key);
+
+    /**
+     * Current version of the entity, to be read before listing
+     *
+     * @param entityId The entity id
+     * @return The version
+     */
+    public long getVersion(String entityId);
+
+    /**
+     * Keep a page unless the entity was written since the given version was
+     * read
+     *
+     * @param entityId The entity id
+     * @param key The page key
+     * @param ids The identifiers of the page items, in list order
+     * @param version The version read before listing
+     */
+    public void put(String entityId, String key, List<Object> ids, long version);
+
+    /**
+     * Drop every page of the entity
+     *
+     * @param entityId The entity id
+     */
+    public void invalidate(String entityId);
+
+    /**
+     * Drop every page
+     */
+    public void clear();
+
+    /**
+     * @return Number of pages found
+     */
+    public long getHits();
+
+    /**
+     * @return Number of pages not found
+     */
+    public long getMisses();
+}
@@ -20,7 +20,7 @@ package org.jpos.ee.pm.core;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.jpos.util.DisplacedList;
+import org.jpos.util.RowPage;
 
 /**
  * This list represents a list with a paged representation.
@@ -31,7 +31,7 @@ public class PaginatedList {
 
     public static final int DEFAULT_PAGE_SIZE = 10;
     private Entity entity;
-    private DisplacedList<Object> contents;
+    private RowPage<Object> contents;
     private Integer page;
     private Integer pages;
     private Long total;
@@ -45,6 +45,10 @@ public class PaginatedList {
     private boolean showRowNumber;
     private String operationColWidth;
     private boolean hasSelectedScope;
+    private Keyset keyset;
+    private boolean countPending;
+    private String countedKey;
+    private long countedVersion;
 
     /**
      * Returns a list with the existing pages index
@@ -84,9 +88,9 @@ public class PaginatedList {
      * @param contents
      * @param total
      */
-    public PaginatedList(DisplacedList<Object> contents, Long total) {
+    public PaginatedList(List<Object> contents, Long total) {
         super();
-        this.contents = contents;
+        this.contents = new RowPage<Object>(contents, 0);
         rowsPerPage = 10; //Default
         this.page = 1;
         if (total != null) {
@@ -136,23 +140,25 @@ public class PaginatedList {
     }
 
     /**
+     * Rows of the current page, addressed by absolute row position
      *
-     * @return
+     * @return The page rows
      */
-    public DisplacedList<Object> getContents() {
+    public RowPage<Object> getContents() {
         if (contents == null) {
-            contents = new DisplacedList<Object>();
+            contents = new RowPage<Object>();
         }
         return contents;
     }
 
     /**
+     * Set the rows of the current page, which start at the first row of the
+     * page. Rows are not copied.
      *
-     * @param contents
+     * @param contents The page rows
      */
-    public void setContents(DisplacedList<Object> contents) {
-        this.contents = contents;
-        getContents().setDisplacement((int) ((getPage() - 1) * getRowsPerPage()));
+    public void setContents(List<Object> contents) {
+        this.contents = new RowPage<Object>(contents, (getPage() - 1) * getRowsPerPage());
     }
 
     /**
@@ -363,6 +369,63 @@ public class PaginatedList {
         return hasSelectedScope;
     }
 
+    /**
+     * @return the sort keys of the current page, null if unknown
+     */
+    public Keyset getKeyset() {
+        return keyset;
+    }
+
+    /**
+     * @param keyset the sort keys of the current page
+     */
+    public void setKeyset(Keyset keyset) {
+        this.keyset = keyset;
+    }
+
+    /**
+     * @return true when the total was not read with the page and must be
+     * requested apart
+     */
+    public boolean isCountPending() {
+        return countPending;
+    }
+
+    /**
+     * @param countPending the countPending to set
+     */
+    public void setCountPending(boolean countPending) {
+        this.countPending = countPending;
+    }
+
+    /**
+     * Set a total counted apart from the page
+     *
+     * @param total The total
+     * @param key The filter key it was counted for, null if it must not be
+     * reused
+     * @param version The entity version read before counting
+     */
+    public void setCountedTotal(Long total, String key, long version) {
+        setTotal(total);
+        setCountPending(false);
+        this.countedKey = (total == null) ? null : key;
+        this.countedVersion = version;
+    }
+
+    /**
+     * @param key The filter key
+     * @param version The current entity version
+     * @return the total counted apart for the same filter key if the entity
+     * was not written since, null otherwise
+     */
+    public Long getCountedTotal(String key, long version) {
+        if (countedKey == null || !countedKey.equals(key) || countedVersion != version) {
+            return null;
+        }
+        return getTotal();
+    }
+
     public Integer getListTotalDigits() {
         try {
             return (getTotal() == null || getTotal() == 0) ? 1 : (int) Math.log10(getTotal()) + 1;
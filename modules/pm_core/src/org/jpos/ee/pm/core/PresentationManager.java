@@ -19,7 +19,7 @@ package org.jpos.ee.pm.core;
 
 import java.util.*;
 import org.apache.commons.beanutils.NestedNullException;
-import org.apache.commons.beanutils.PropertyUtils;
+import org.jpos.core.Configurable;
 import org.jpos.core.Configuration;
 import org.jpos.ee.pm.converter.*;
 import org.jpos.ee.pm.core.monitor.Monitor;
@@ -38,19 +38,33 @@ public class PresentationManager extends Observable {
     /** Singleton */
     public static PresentationManager pm;
     private static Long sessionIdSeed = 0L;
+    private static final MessageCatalog messages = new MessageCatalog("org.jpos.ee.ApplicationResource");
     private Configuration cfg;
     private static final String TAB = "    ";
     private static final String ERR = " ==>";
-    private Map<Object, Entity> entities;
+    private volatile EntityRegistry registry = EntityRegistry.EMPTY;
     private Map<String, MenuItemLocation> locations;
-    private Map<Object, Monitor> monitors;
-    private List<ExternalConverters> externalConverters;
+    private volatile Map<Object, Monitor> monitors;
+    private volatile List<ExternalConverters> externalConverters;
+    private volatile Map<String, Converter> externalConverterIndex = Collections.emptyMap();
+    private volatile int externalConvertersVersion;
+    private Map<String, Entity> entityFiles;
+    private Map<String, Monitor> monitorFiles;
+    private Map<String, ExternalConverters> converterFiles;
+    private DefinitionWatcher watcher;
+    private Diagnostics diagnostics;
     private PersistenceManager persistenceManager;
     private boolean error;
     private Log log;
     private PMService service;
-    private final Map<String, PMSession> sessions = new HashMap<String, PMSession>();
-    private Timer sessionChecker;
+    private SessionRegistry sessions;
+    private final CountCache countCache = new CountCache();
+    private volatile PageCache pageCache = new LruPageCache();
+    private final PropertyAccessor.Cache accessors = new PropertyAccessor.Cache();
+    /** Parsers are configured once and shared, they are thread safe */
+    private final PMParser entityParser = new EntityParser();
+    private final PMParser monitorParser = new MonitorParser();
+    private final PMParser converterParser = new ExternalConverterParser();
 
     /**
      * Initialize the Presentation Manager
@@ -65,6 +79,7 @@ public class PresentationManager extends Observable {
         error = false;
         this.log = log;
         this.service = service;
+        createDiagnostics();
 
         LogEvent evt = getLog().createInfo();
         evt.addMessage("startup", "Presentation Manager activated");
@@ -95,13 +110,26 @@ public class PresentationManager extends Observable {
                 error = true;
                 logItem(evt, "Persistance Manager", tmp, "?");
             }
+            createPageCache(evt);
             evt.addMessage(TAB + "<configuration>");
 
-            loadEntities(cfg, evt);
-            loadMonitors(cfg, evt);
-            loadConverters(cfg, evt);
-            loadLocations(evt);
             createSessionChecker();
+            final long start = System.currentTimeMillis();
+            final DefinitionLoader loader = new DefinitionLoader(getStartupThreads());
+            final DefinitionSnapshot snapshot = loadSnapshot(evt);
+            loader.setSnapshot(snapshot);
+            try {
+                loadConverters(cfg, evt, loader);
+                loadEntities(cfg, evt, loader);
+                loadMonitors(cfg, evt, loader);
+            } finally {
+                loader.shutdown();
+            }
+            saveSnapshot(evt, snapshot);
+            loadLocations(evt);
+            logItem(evt, "Messages", Integer.toString(messages.warm(Locale.getDefault())), "*");
+            createWatcher();
+            logItem(evt, "Startup time", (System.currentTimeMillis() - start) + "ms", "*");
         } catch (Exception exception) {
             getLog().error(exception);
             error = true;
@@ -121,8 +149,32 @@ public class PresentationManager extends Observable {
         return cfg.get("template", "default");
     }
 
+    /**
+     * Debug flag, read from configuration at startup
+     * @return true if debug is active
+     */
     public boolean isDebug() {
-        return cfg.getBoolean("debug");
+        return diagnostics != null && diagnostics.isDebug();
+    }
+
+    /**
+     * Getter for the diagnostics
+     * @return The diagnostics
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Number of threads used to parse definition files at startup. When
+     * "parallel-startup" is not active definitions are parsed sequentially.
+     * @return The number of threads
+     */
+    public int getStartupThreads() {
+        if (!cfg.getBoolean("parallel-startup")) {
+            return 1;
+        }
+        return cfg.getInt("startup-threads", Runtime.getRuntime().availableProcessors());
     }
 
     public String getAppversion() {
@@ -142,35 +194,125 @@ public class PresentationManager extends Observable {
         LogEvent evt = getLog().createDebug();
         evt.addMessage("[" + invoquer.getClass().getName() + "]");
         evt.addMessage(o);
-        Logger.log(evt);
+        diagnostics.log(evt);
+    }
+
+    /**
+     * If debug flag is active, create a debug information log with the
+     * concatenation of the message and the argument. The message is only
+     * built when debug is active.
+     *
+     * @param invoquer The invoquer of the debug
+     * @param msg Message
+     * @param arg Argument appended to the message
+     */
+    public void debug(Object invoquer, String msg, Object arg) {
+        if (!isDebug()) {
+            return;
+        }
+        debug(invoquer, msg + arg);
+    }
+
+    /**
+     * Create a debug event if debug flag is active
+     * @return The event or null if debug is not active
+     */
+    public LogEvent createDebug() {
+        return isDebug() ? getLog().createDebug() : null;
+    }
+
+    /**
+     * Write the given event, created with {@link #createDebug()}, through
+     * the diagnostics buffer. Null events are ignored.
+     * @param evt The event
+     */
+    public void debug(LogEvent evt) {
+        if (evt != null) {
+            diagnostics.log(evt);
+        }
     }
 
     protected String getDefaultConverterClass() {
         return getCfg().get("default-converter");
     }
 
-    private void loadMonitors(Configuration cfg, LogEvent evt) {
-        PMParser parser = new MonitorParser();
+    private void loadMonitors(Configuration cfg, LogEvent evt, DefinitionLoader loader) {
         evt.addMessage(TAB + "<monitors>");
-        Map<Object, Monitor> result = new HashMap<Object, Monitor>();
-        String[] ss = cfg.getAll("monitor");
-        for (Integer i = 0; i < ss.length; i++) {
-            try {
-                Monitor m = (Monitor) parser.parseFile(ss[i]);
+        final Map<String, Monitor> files = new LinkedHashMap<String, Monitor>();
+        for (ParseResult pr : loader.parse(monitorParser, cfg.getAll("monitor"))) {
+            files.put(pr.getFilename(), startMonitor(pr, evt));
+        }
+        monitorFiles = files;
+        monitors = indexMonitors(files);
+        evt.addMessage(TAB + "</monitors>");
+    }
+
+    private Monitor startMonitor(ParseResult pr, LogEvent evt) {
+        try {
+            if (!pr.isOk()) {
+                throw pr.getError();
+            }
+            Monitor m = (Monitor) pr.getObject();
+            m.getSource().init();
+            Thread thread = new Thread(m);
+            m.setThread(thread);
+            thread.start();
+            logItem(evt, m.getId(), m.getSource().getClass().getName() + elapsed(pr), "*");
+            return m;
+        } catch (Exception exception) {
+            getLog().error(exception);
+            logItem(evt, pr.getFilename(), null, "!");
+            return null;
+        }
+    }
+
+    private static Map<Object, Monitor> indexMonitors(Map<String, Monitor> files) {
+        final Map<Object, Monitor> result = new HashMap<Object, Monitor>();
+        Integer i = 0;
+        for (Monitor m : files.values()) {
+            if (m != null) {
                 result.put(m.getId(), m);
                 result.put(i, m);
-                m.getSource().init();
-                Thread thread = new Thread(m);
-                m.setThread(thread);
-                thread.start();
-                logItem(evt, m.getId(), m.getSource().getClass().getName(), "*");
-            } catch (Exception exception) {
-                getLog().error(exception);
-                logItem(evt, ss[i], null, "!");
             }
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * Parse time of a definition file for the startup log
+     * @param pr The parse result
+     * @return The elapsed time, noting when it came from the snapshot
+     */
+    private static String elapsed(ParseResult pr) {
+        return " (" + (pr.isCached() ? "snapshot " : "") + pr.getElapsed() + "ms)";
+    }
+
+    /**
+     * Open the definition snapshot configured with the "snapshot" property.
+     * @return The snapshot or null if not configured
+     */
+    private DefinitionSnapshot loadSnapshot(LogEvent evt) {
+        final String filename = cfg.get("snapshot", null);
+        if (filename == null || filename.trim().length() == 0) {
+            return null;
+        }
+        final DefinitionSnapshot snapshot = new DefinitionSnapshot(filename.trim());
+        logItem(evt, "Snapshot", filename, snapshot.load() ? "*" : "-");
+        return snapshot;
+    }
+
+    private void saveSnapshot(LogEvent evt, DefinitionSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.save();
+            logItem(evt, "Snapshot", snapshot.getHits() + " restored, " + snapshot.getMisses() + " parsed", "*");
+        } catch (Exception e) {
+            getLog().error(e);
+            logItem(evt, "Snapshot", snapshot.getFile().getPath(), "!");
         }
-        monitors = result;
-        evt.addMessage(TAB + "</monitors>");
     }
 
     /**
@@ -198,39 +340,53 @@ public class PresentationManager extends Observable {
         evt.addMessage(TAB + "</locations>");
     }
 
-    private void loadEntities(Configuration cfg, LogEvent evt) {
-        EntityParser parser = new EntityParser();
+    private void loadEntities(Configuration cfg, LogEvent evt, DefinitionLoader loader) {
         evt.addMessage(TAB + "<entities>");
-        if (entities == null) {
-            entities = new HashMap<Object, Entity>();
-        } else {
-            entities.clear();
+        final Map<String, Entity> files = new LinkedHashMap<String, Entity>();
+        for (ParseResult pr : loader.parse(entityParser, cfg.getAll("entity"))) {
+            final Entity e = toEntity(pr, evt);
+            if (e == null) {
+                error = true;
+            }
+            files.put(pr.getFilename(), e);
         }
-        String[] ss = cfg.getAll("entity");
-        for (Integer i = 0; i < ss.length; i++) {
-            try {
-                Entity e = (Entity) parser.parseFile(ss[i]);
-                try {
-                    Class.forName(e.getClazz());
-                    entities.put(e.getId(), e);
-                    entities.put(i, e);
-                    if (e.isWeak()) {
-                        logItem(evt, e.getId(), e.getClazz(), "\u00b7");
-                    } else {
-                        logItem(evt, e.getId(), e.getClazz(), "*");
-                    }
+        entityFiles = files;
+        registry = new EntityRegistry(loadedValues(files));
+        evt.addMessage(TAB + "</entities>");
+    }
 
-                } catch (ClassNotFoundException cnte) {
-                    logItem(evt, e.getId(), e.getClazz(), "?");
-                    error = true;
+    private Entity toEntity(ParseResult pr, LogEvent evt) {
+        try {
+            if (!pr.isOk()) {
+                throw pr.getError();
+            }
+            Entity e = (Entity) pr.getObject();
+            try {
+                Class.forName(e.getClazz());
+                if (e.isWeak()) {
+                    logItem(evt, e.getId(), e.getClazz() + elapsed(pr), "\u00b7");
+                } else {
+                    logItem(evt, e.getId(), e.getClazz() + elapsed(pr), "*");
                 }
-            } catch (Exception exception) {
-                getLog().error(exception);
-                logItem(evt, ss[i], "???", "!");
-                error = true;
+                return e;
+            } catch (ClassNotFoundException cnte) {
+                logItem(evt, e.getId(), e.getClazz(), "?");
             }
+        } catch (Exception exception) {
+            getLog().error(exception);
+            logItem(evt, pr.getFilename(), "???", "!");
         }
-        evt.addMessage(TAB + "</entities>");
+        return null;
+    }
+
+    private static <T> List<T> loadedValues(Map<String, T> files) {
+        final List<T> result = new ArrayList<T>(files.size());
+        for (T t : files.values()) {
+            if (t != null) {
+                result.add(t);
+            }
+        }
+        return result;
     }
 
     /**
@@ -239,17 +395,7 @@ public class PresentationManager extends Observable {
      * @return The list of weak entities
      */
     protected List<Entity> weakEntities(Entity e) {
-        List<Entity> res = new ArrayList<Entity>();
-        for (Entity entity : getEntities().values()) {
-            if (entity.getOwner() != null && entity.getOwner().getEntityId().compareTo(e.getId()) == 0) {
-                res.add(entity);
-            }
-        }
-        if (res.isEmpty()) {
-            return null;
-        } else {
-            return res;
-        }
+        return getRegistry().getWeaks(e.getId());
     }
 
     /**
@@ -258,14 +404,7 @@ public class PresentationManager extends Observable {
      * @return The entity
      */
     public Entity getEntity(String id) {
-        Entity e = getEntities().get(id);
-        if (e == null) {
-            return null;
-        }
-        if (e.getExtendz() != null && e.getExtendzEntity() == null) {
-            e.setExtendzEntity(this.getEntity(e.getExtendz()));
-        }
-        return e;
+        return getRegistry().getEntity(id);
     }
 
     /**
@@ -295,19 +434,12 @@ public class PresentationManager extends Observable {
         if (e == null) {
             return null;
         }
-        e.setWeaks(weakEntities(e));
         return new EntityContainer(e, HASH);
     }
 
     /**Looks for an Entity with the given id*/
     private Entity lookupEntity(String sid) {
-        for (Integer i = 0; i < getEntities().size(); i++) {
-            Entity e = getEntities().get(i);
-            if (e != null && sid.compareTo(EntityContainer.buildId(HASH, e.getId())) == 0) {
-                return getEntity(e.getId());
-            }
-        }
-        return null;
+        return getRegistry().getEntityByContainerId(sid);
     }
 
 
@@ -329,11 +461,19 @@ public class PresentationManager extends Observable {
     }
 
     /**
-     * Getter for entities map
+     * Getter for entities map, keyed by id and by load position
      * @return
      */
     public Map<Object, Entity> getEntities() {
-        return entities;
+        return getRegistry().asMap();
+    }
+
+    /**
+     * Getter for the entity registry
+     * @return The current registry
+     */
+    public EntityRegistry getRegistry() {
+        return registry;
     }
 
     /**
@@ -448,12 +588,37 @@ public class PresentationManager extends Observable {
      * @param obj The object
      * @param propertyName The property
      * @return The value of the property of the object
+     * @see PropertyAccessor
      * */
     public Object get(Object obj, String propertyName) {
+        if (obj == null || propertyName == null) {
+            return null;
+        }
+        return get(obj, getAccessor(propertyName));
+    }
+
+    /**Getter for the values of all the given fields in one pass, using the
+     * accessors kept by the fields. Each value is read as in
+     * {@link #get(Object, String)}
+     * @param obj The object
+     * @param fields The fields to read
+     * @return The values of the fields properties, in the same order
+     * */
+    public Object[] getAll(Object obj, List<Field> fields) {
+        final Object[] values = new Object[fields.size()];
+        if (obj == null) {
+            return values;
+        }
+        for (int i = 0; i < values.length; i++) {
+            final Field field = fields.get(i);
+            values[i] = (field.getProperty() == null) ? null : get(obj, field.getAccessor());
+        }
+        return values;
+    }
+
+    private Object get(Object obj, PropertyAccessor accessor) {
         try {
-            if (obj != null && propertyName != null) {
-                return PropertyUtils.getNestedProperty(obj, propertyName);
-            }
+            return accessor.get(obj);
         } catch (NullPointerException e) {
             // OK to happen
         } catch (NestedNullException e) {
@@ -466,6 +631,15 @@ public class PresentationManager extends Observable {
         return null;
     }
 
+    /**Compiled accessor for a property path, shared by every caller of
+     * this presentation manager
+     * @param path The property path
+     * @return The accessor
+     * */
+    public PropertyAccessor getAccessor(String path) {
+        return accessors.forPath(path);
+    }
+
     /**Setter for an object property value
      * @param obj The object
      * @param name The property name
@@ -473,7 +647,7 @@ public class PresentationManager extends Observable {
      * */
     public void set(Object obj, String name, Object value) {
         try {
-            PropertyUtils.setNestedProperty(obj, name, value);
+            getAccessor(name).set(obj, value);
         } catch (Exception e) {
             error(e);
         }
@@ -493,32 +667,247 @@ public class PresentationManager extends Observable {
         }
     }
 
-    private void loadConverters(Configuration cfg, LogEvent evt) {
-        PMParser parser = new ExternalConverterParser();
+    private void loadConverters(Configuration cfg, LogEvent evt, DefinitionLoader loader) {
         evt.addMessage(TAB + "<external-converters>");
-        externalConverters = new ArrayList<ExternalConverters>();
-        String[] ss = cfg.getAll("external-converters");
-        for (Integer i = 0; i < ss.length; i++) {
-            try {
-                ExternalConverters ec = (ExternalConverters) parser.parseFile(ss[i]);
-                externalConverters.add(ec);
-                logItem(evt, ss[i], null, "*");
-            } catch (Exception exception) {
-                getLog().error(exception);
-                logItem(evt, ss[i], null, "!");
-            }
+        final Map<String, ExternalConverters> files = new LinkedHashMap<String, ExternalConverters>();
+        for (ParseResult pr : loader.parse(converterParser, cfg.getAll("external-converters"))) {
+            files.put(pr.getFilename(), toConverters(pr, evt));
         }
+        converterFiles = files;
+        setExternalConverters(loadedValues(files));
         evt.addMessage(TAB + "</external-converters>");
     }
 
-    public Converter findExternalConverter(String id) {
-        for (ExternalConverters ecs : externalConverters) {
-            ConverterWrapper w = ecs.getWrapper(id);
-            if (w != null) {
-                return w.getConverter();
+    private ExternalConverters toConverters(ParseResult pr, LogEvent evt) {
+        if (pr.isOk()) {
+            logItem(evt, pr.getFilename(), elapsed(pr).trim(), "*");
+            return (ExternalConverters) pr.getObject();
+        } else {
+            getLog().error(pr.getError());
+            logItem(evt, pr.getFilename(), null, "!");
+            return null;
+        }
+    }
+
+    /**
+     * Reload the given definition files. Only the given files are parsed
+     * again; a new entity registry is built and published at once, so
+     * requests already running keep the model they started with and new
+     * requests see the new one. Entity containers of live sessions are
+     * rebound to the new entities. If a file fails to parse, the previous
+     * definition is kept.
+     *
+     * @param changed Changed files, as configured in the entity, monitor
+     * and external-converters properties
+     * @return true if every file was reloaded
+     */
+    public boolean reload(Collection<String> changed) {
+        return reload(changed, new ArrayList<String>());
+    }
+
+    /**
+     * Reload the given definition files, collecting the ones that could not
+     * be reloaded
+     *
+     * @param changed Changed files
+     * @param failed Receives the files that were not reloaded
+     * @return true if every file was reloaded
+     */
+    synchronized boolean reload(Collection<String> changed, Collection<String> failed) {
+        boolean ok = true;
+        final LogEvent evt = getLog().createInfo();
+        evt.addMessage("reload", "Presentation Manager definitions");
+        final DefinitionLoader loader = new DefinitionLoader(1);
+        try {
+            final Map<String, Entity> efiles = new LinkedHashMap<String, Entity>(entityFiles);
+            boolean reloadEntities = false;
+            for (Map.Entry<String, Entity> entry : efiles.entrySet()) {
+                if (changed.contains(entry.getKey())) {
+                    final Entity e = toEntity(loader.parse(entityParser, entry.getKey()), evt);
+                    if (e != null) {
+                        entry.setValue(e);
+                        reloadEntities = true;
+                    } else {
+                        failed.add(entry.getKey());
+                        ok = false;
+                    }
+                }
+            }
+            if (reloadEntities) {
+                //The new registry links and compiles its entities, so the
+                //ones still published must not be shared with it
+                for (Map.Entry<String, Entity> entry : efiles.entrySet()) {
+                    if (!changed.contains(entry.getKey()) && entry.getValue() != null) {
+                        final Entity copy = copyOf(entry.getKey(), entry.getValue(), loader, evt);
+                        if (copy == null) {
+                            //Keep the current model, retry the changed files later
+                            reloadEntities = false;
+                            ok = false;
+                            for (String f : efiles.keySet()) {
+                                if (changed.contains(f)) {
+                                    failed.add(f);
+                                }
+                            }
+                            break;
+                        }
+                        entry.setValue(copy);
+                    }
+                }
+            }
+            if (reloadEntities) {
+                final EntityRegistry r = new EntityRegistry(loadedValues(efiles));
+                entityFiles = efiles;
+                registry = r;
+                rebindContainers(r);
+                //List filters may have changed
+                countCache.clear();
+                pageCache.clear();
+            }
+
+            final Map<String, ExternalConverters> cfiles = new LinkedHashMap<String, ExternalConverters>(converterFiles);
+            boolean reloadConverters = false;
+            for (Map.Entry<String, ExternalConverters> entry : cfiles.entrySet()) {
+                if (changed.contains(entry.getKey())) {
+                    final ExternalConverters ec = toConverters(loader.parse(converterParser, entry.getKey()), evt);
+                    if (ec != null) {
+                        entry.setValue(ec);
+                        reloadConverters = true;
+                    } else {
+                        failed.add(entry.getKey());
+                        ok = false;
+                    }
+                }
+            }
+            if (reloadConverters) {
+                converterFiles = cfiles;
+                setExternalConverters(loadedValues(cfiles));
+            }
+
+            final Map<String, Monitor> mfiles = new LinkedHashMap<String, Monitor>(monitorFiles);
+            boolean reloadMonitors = false;
+            for (Map.Entry<String, Monitor> entry : mfiles.entrySet()) {
+                if (changed.contains(entry.getKey())) {
+                    final Monitor m = startMonitor(loader.parse(monitorParser, entry.getKey()), evt);
+                    if (m != null) {
+                        if (entry.getValue() != null) {
+                            entry.getValue().stop();
+                        }
+                        entry.setValue(m);
+                        reloadMonitors = true;
+                    } else {
+                        failed.add(entry.getKey());
+                        ok = false;
+                    }
+                }
+            }
+            if (reloadMonitors) {
+                monitorFiles = mfiles;
+                monitors = indexMonitors(mfiles);
             }
+        } catch (Exception e) {
+            getLog().error(e);
+            failed.addAll(changed);
+            ok = false;
+        } finally {
+            loader.shutdown();
         }
-        return null;
+        Logger.log(evt);
+        return ok;
+    }
+
+    /**
+     * A copy of an unchanged entity for a new registry, parsing its file
+     * again if it can not be copied
+     */
+    private Entity copyOf(String filename, Entity entity, DefinitionLoader loader, LogEvent evt) {
+        try {
+            return (Entity) DefinitionSnapshot.copy(entity);
+        } catch (Exception e) {
+            warn(e);
+        }
+        return toEntity(loader.parse(entityParser, filename), evt);
+    }
+
+    /**
+     * Point every entity container of every session to the entity with the
+     * same id in the given registry.
+     */
+    private void rebindContainers(EntityRegistry r) {
+        for (PMSession s : sessions.getSessions().values()) {
+            for (EntityContainer c : s.getContainers()) {
+                final Entity e = r.getEntity(c.getEntity().getId());
+                if (e != null) {
+                    c.setEntity(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter for the definition files watcher
+     * @return The watcher or null if reloading is disabled
+     */
+    public DefinitionWatcher getWatcher() {
+        return watcher;
+    }
+
+    private void createWatcher() {
+        if (watcher != null) {
+            watcher.stop();
+            watcher = null;
+        }
+        final int interval = cfg.getInt("reload-interval", 0);
+        if (interval > 0) {
+            watcher = new DefinitionWatcher(this);
+            watcher.watch(entityFiles.keySet());
+            watcher.watch(converterFiles.keySet());
+            watcher.watch(monitorFiles.keySet());
+            watcher.start(interval * 1000L);
+        }
+    }
+
+    /**
+     * Publish the given external converters, indexing them by id
+     */
+    private void setExternalConverters(List<ExternalConverters> list) {
+        final Map<String, Converter> index = new HashMap<String, Converter>();
+        for (ExternalConverters ecs : list) {
+            if (ecs.getConverters() != null) {
+                for (ConverterWrapper w : ecs.getConverters()) {
+                    final String key = w.getId().toLowerCase();
+                    if (w.getConverter() != null) {
+                        w.getConverter().compile();
+                    }
+                    if (!index.containsKey(key)) {
+                        index.put(key, w.getConverter());
+                    }
+                }
+            }
+        }
+        externalConverters = list;
+        externalConverterIndex = index;
+        externalConvertersVersion++;
+    }
+
+    /**
+     * Return the external converter with the given id, ignoring case
+     * @param id The converter id
+     * @return The converter or null
+     */
+    public Converter findExternalConverter(String id) {
+        if (id == null) {
+            return null;
+        }
+        return externalConverterIndex.get(id.toLowerCase());
+    }
+
+    /**
+     * Incremented each time external converters are (re)loaded, so cached
+     * converter resolutions can be discarded.
+     * @return The version
+     */
+    public int getExternalConvertersVersion() {
+        return externalConvertersVersion;
     }
 
     /**
@@ -528,13 +917,11 @@ public class PresentationManager extends Observable {
      * @return New session
      */
     public PMSession registerSession(String sessionId) throws PMException {
-        synchronized (sessions) {
-            if (sessions.containsKey(sessionId)) {
-                throw new PMException("Session already defined");
-            }
-            sessions.put(sessionId, new PMSession(sessionId));
-            return getSession(sessionId);
+        final PMSession s = sessions.register(sessionId);
+        if (s == null) {
+            throw new PMException("Session already defined");
         }
+        return s;
     }
 
     /**
@@ -543,11 +930,7 @@ public class PresentationManager extends Observable {
      * @return The session
      */
     public PMSession getSession(String sessionId) {
-        final PMSession s = sessions.get(sessionId);
-        if (s != null) {
-            s.setLastAccess(new Date());
-        }
-        return s;
+        return sessions.touch(sessionId);
     }
 
     /**
@@ -555,6 +938,15 @@ public class PresentationManager extends Observable {
      * @return Sessions
      */
     public Map<String, PMSession> getSessions() {
+        return sessions.getSessions();
+    }
+
+    /**
+     * Getter for the session registry, with session counts and expiration
+     * statistics.
+     * @return The registry
+     */
+    public SessionRegistry getSessionRegistry() {
         return sessions;
     }
 
@@ -565,6 +957,45 @@ public class PresentationManager extends Observable {
         sessions.remove(sessionId);
     }
 
+    /**
+     * Getter for the shared cache of list totals
+     * @return The cache
+     */
+    public CountCache getCountCache() {
+        return countCache;
+    }
+
+    /**
+     * Getter for the shared cache of list pages
+     * @return The cache
+     */
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Drops the cached totals, pages and identifiers of an entity, after one
+     * of its instances was written
+     * @param entityId The entity id
+     */
+    public void invalidate(String entityId) {
+        countCache.invalidate(entityId);
+        pageCache.invalidate(entityId);
+        final Entity entity = getEntity(entityId);
+        if (entity != null && entity.getIdCache() != null) {
+            entity.getIdCache().clear();
+        }
+    }
+
+    /**
+     * Seconds a list total is reused when the entity does not define
+     * "count-ttl". Zero (the default) disables the cache.
+     * @return The seconds
+     */
+    public int getCountTtl() {
+        return cfg.getInt("count-ttl", 0);
+    }
+
     public Configuration getCfg() {
         return cfg;
     }
@@ -573,27 +1004,45 @@ public class PresentationManager extends Observable {
         return cfg.get("subtitle", "pm.subtitle");
     }
 
+    private void createPageCache(LogEvent evt) {
+        final String tmp = cfg.get("page-cache", LruPageCache.class.getName());
+        try {
+            final PageCache cache = (PageCache) newInstance(tmp);
+            if (cache == null) {
+                throw new PMException();
+            }
+            if (cache instanceof Configurable) {
+                ((Configurable) cache).setConfiguration(cfg);
+            }
+            pageCache = cache;
+            logItem(evt, "Page Cache", cache.getClass().getName(), "*");
+        } catch (Exception e) {
+            error = true;
+            logItem(evt, "Page Cache", tmp, "?");
+        }
+    }
+
+    private void createDiagnostics() {
+        if (diagnostics != null) {
+            diagnostics.stop();
+        }
+        diagnostics = new Diagnostics(cfg.getBoolean("debug"), cfg.getInt("log-buffer-size", 1024));
+        diagnostics.start();
+    }
+
     private void createSessionChecker() {
         final Long timeout = cfg.getLong("session-timeout", 60 * 60) * 1000;
         final int interval = cfg.getInt("session-check-interval", 60 * 5) * 1000;
-        sessionChecker = new Timer();
-        sessionChecker.schedule(new TimerTask() {
-
-            @Override
-            public void run() {
-                synchronized (sessions) {
-                    List<String> toRemove = new ArrayList<String>();
-                    for (Map.Entry<String, PMSession> entry : sessions.entrySet()) {
-                        if (entry.getValue().getLastAccess().getTime() + timeout < System.currentTimeMillis()) {
-                            toRemove.add(entry.getKey());
-                        }
-                    }
-                    for (String session : toRemove) {
-                        removeSession(session);
-                    }
-                }
+        final SessionRegistry registry = new SessionRegistry(timeout, interval);
+        if (sessions != null) {
+            //Keep sessions alive on service restart
+            sessions.stop();
+            for (PMSession s : sessions.getSessions().values()) {
+                registry.add(s);
             }
-        }, 0, interval);
+        }
+        registry.start();
+        sessions = registry;
     }
 
     public String getCopyright() {
@@ -613,19 +1062,22 @@ public class PresentationManager extends Observable {
      * Returns the internacionalized string for the given key
      */
     public static String getMessage(String key, Object... params) {
-        try {
-            ResourceBundle bundle = ResourceBundle.getBundle("org.jpos.ee.ApplicationResource");
-            String string = bundle.getString(key);
-            if (params != null) {
-                for (int i = 0; i < params.length; i++) {
-                    String param = (params[i] == null) ? "" : params[i].toString();
-                    string = string.replaceAll("\\{" + i + "\\}", param);
-                }
-            }
-            return string;
-        } catch (Exception e) {
-            return key;
-        }
+        return messages.getMessage(Locale.getDefault(), key, params);
+    }
+
+    /**
+     * Returns the internacionalized string for the given key and locale
+     */
+    public static String getMessage(Locale locale, String key, Object... params) {
+        return messages.getMessage(locale, key, params);
+    }
+
+    /**
+     * Getter for the message catalog
+     * @return The catalog
+     */
+    public static MessageCatalog getMessages() {
+        return messages;
     }
 
     public Converter getDefaultConverter() {
@@ -0,0 +1,260 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.beanutils.PropertyUtils;
+
+/**
+ * A compiled accessor for a (possibly nested) property path like
+ * "owner.address.street". The path is split once and every step keeps the
+ * getter and setter resolved for the last class it has seen, so reading a
+ * property of instances of the same class is a chain of direct method
+ * invocations.<br/>
+ * Traversal is null safe: a null value in the middle of the path results in
+ * a null value and no exception.<br/>
+ * Paths with indexed or mapped properties ("a[0]", "a(key)") are delegated
+ * to commons-beanutils.
+ *
+ * Accessors and the resolved getters and setters are kept in a {@link Cache}
+ * owned by the presentation manager, so they go away with it and do not keep
+ * the classes of the application loaded.
+ *
+ * @author jpaoletti
+ * @see PresentationManager#getAccessor(String)
+ */
+public final class PropertyAccessor {
+
+    private final String path;
+    private final Step[] steps;
+    private final boolean complex;
+
+    private PropertyAccessor(Cache cache, String path) {
+        this.path = path;
+        this.complex = path.indexOf('[') >= 0 || path.indexOf('(') >= 0;
+        final String[] names = path.split("[.]");
+        steps = new Step[names.length];
+        for (int i = 0; i < names.length; i++) {
+            steps[i] = new Step(cache, names[i]);
+        }
+    }
+
+    /**
+     * Reads the property from the given object
+     * @param obj The object
+     * @return The value or null if any object in the path is null
+     * @throws Exception if the property does not exist or the getter fails
+     */
+    public Object get(Object obj) throws Exception {
+        if (complex) {
+            return PropertyUtils.getNestedProperty(obj, path);
+        }
+        Object current = obj;
+        for (int i = 0; i < steps.length && current != null; i++) {
+            current = steps[i].get(current);
+        }
+        return current;
+    }
+
+    /**
+     * Writes the property in the given object.
+     * @param obj The object
+     * @param value The value to set
+     * @throws Exception if the property does not exist, the setter fails or
+     * an intermediate object in the path is null
+     */
+    public void set(Object obj, Object value) throws Exception {
+        if (complex) {
+            PropertyUtils.setNestedProperty(obj, path, value);
+            return;
+        }
+        Object current = obj;
+        for (int i = 0; i < steps.length - 1; i++) {
+            current = steps[i].get(current);
+            if (current == null) {
+                throw new IllegalArgumentException("Null property value for '" + path + "' on '" + steps[i].name + "'");
+            }
+        }
+        steps[steps.length - 1].set(current, value);
+    }
+
+    /**
+     * Getter for the path
+     * @return The property path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyAccessor[" + path + "]";
+    }
+
+    private static Map<String, Binding> introspect(Class<?> clazz) {
+        final Map<String, Binding> result = new HashMap<String, Binding>();
+        try {
+            final BeanInfo info = Introspector.getBeanInfo(clazz);
+            for (PropertyDescriptor pd : info.getPropertyDescriptors()) {
+                final Method getter = accessible(pd.getReadMethod());
+                final Method setter = accessible(pd.getWriteMethod());
+                result.put(pd.getName(), new Binding(clazz, getter, setter));
+            }
+        } catch (IntrospectionException e) {
+            PresentationManager.getPm().error(e);
+        }
+        return result;
+    }
+
+    private static Method accessible(Method m) {
+        if (m != null && !m.isAccessible()) {
+            try {
+                m.setAccessible(true);
+            } catch (SecurityException e) {
+                //Keep it as is
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Accessors by path and bindings by class
+     */
+    public static final class Cache {
+
+        private final ConcurrentMap<String, PropertyAccessor> accessors = new ConcurrentHashMap<String, PropertyAccessor>();
+        private final ConcurrentMap<Class<?>, Map<String, Binding>> bindings = new ConcurrentHashMap<Class<?>, Map<String, Binding>>();
+
+        /**
+         * Returns the shared accessor for the given property path
+         * @param path The property path
+         * @return The accessor
+         */
+        public PropertyAccessor forPath(String path) {
+            PropertyAccessor accessor = accessors.get(path);
+            if (accessor == null) {
+                accessor = new PropertyAccessor(this, path);
+                final PropertyAccessor previous = accessors.putIfAbsent(path, accessor);
+                if (previous != null) {
+                    accessor = previous;
+                }
+            }
+            return accessor;
+        }
+
+        private Binding binding(Class<?> clazz, String name) throws NoSuchMethodException {
+            Map<String, Binding> map = bindings.get(clazz);
+            if (map == null) {
+                map = introspect(clazz);
+                final Map<String, Binding> previous = bindings.putIfAbsent(clazz, map);
+                if (previous != null) {
+                    map = previous;
+                }
+            }
+            final Binding b = map.get(name);
+            if (b == null) {
+                throw new NoSuchMethodException("Unknown property '" + name + "' on class '" + clazz.getName() + "'");
+            }
+            return b;
+        }
+    }
+
+    /**
+     * One step of the path with a monomorphic cache of the last binding used
+     */
+    private static final class Step {
+
+        private final Cache cache;
+        private final String name;
+        private volatile Binding last;
+
+        Step(Cache cache, String name) {
+            this.cache = cache;
+            this.name = name;
+        }
+
+        Object get(Object obj) throws Exception {
+            if (obj instanceof Map) {
+                return ((Map<?, ?>) obj).get(name);
+            }
+            final Binding b = resolve(obj.getClass());
+            if (b.getter == null) {
+                throw new NoSuchMethodException("Property '" + name + "' has no getter method in class '" + obj.getClass().getName() + "'");
+            }
+            return invoke(b.getter, obj);
+        }
+
+        @SuppressWarnings("unchecked")
+        void set(Object obj, Object value) throws Exception {
+            if (obj instanceof Map) {
+                ((Map<Object, Object>) obj).put(name, value);
+                return;
+            }
+            final Binding b = resolve(obj.getClass());
+            if (b.setter == null) {
+                throw new NoSuchMethodException("Property '" + name + "' has no setter method in class '" + obj.getClass().getName() + "'");
+            }
+            invoke(b.setter, obj, value);
+        }
+
+        private Binding resolve(Class<?> clazz) throws NoSuchMethodException {
+            Binding b = last;
+            if (b == null || b.type != clazz) {
+                b = cache.binding(clazz, name);
+                last = b;
+            }
+            return b;
+        }
+
+        private Object invoke(Method m, Object obj, Object... args) throws Exception {
+            try {
+                return m.invoke(obj, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Getter and setter of a property for a specific class
+     */
+    private static final class Binding {
+
+        private final Class<?> type;
+        private final Method getter;
+        private final Method setter;
+
+        Binding(Class<?> type, Method getter, Method setter) {
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
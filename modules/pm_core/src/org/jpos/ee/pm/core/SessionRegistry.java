@@ -0,0 +1,269 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent store of PM sessions with a hashed timing wheel for expiration.
+ * <br/>
+ * Touching a session is a single write of its last access timestamp. Each
+ * session id is placed in the wheel bucket of its deadline; when a bucket is
+ * swept, sessions touched since then are moved to the bucket of their new
+ * deadline and the rest are removed. A sweep never walks the whole session
+ * map and never blocks request threads.
+ *
+ * @author jpaoletti
+ */
+public class SessionRegistry {
+
+    private final ConcurrentMap<String, PMSession> sessions = new ConcurrentHashMap<String, PMSession>();
+    private final long timeout;
+    private final long tick;
+    private final Queue<String>[] wheel;
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+    private volatile long lastSweepExpired;
+    private volatile long lastSweepTime;
+    private long lastTick;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the registry
+     * @param timeout Session timeout in milliseconds
+     * @param tick Wheel resolution (check interval) in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public SessionRegistry(long timeout, long tick) {
+        this.timeout = timeout;
+        this.tick = Math.max(tick, 1L);
+        final int size = (int) (timeout / this.tick) + 2;
+        wheel = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<String>();
+        }
+        lastTick = System.currentTimeMillis() / this.tick;
+    }
+
+    /**
+     * Starts the expiration daemon
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, "pm-session-checker");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    sweep(System.currentTimeMillis());
+                } catch (Exception e) {
+                    PresentationManager.getPm().error(e);
+                }
+            }
+        }, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the expiration daemon
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Creates a new session with the given id
+     * @param sessionId The new session id. Must be unique.
+     * @return The new session or null if the id is already defined
+     */
+    public PMSession register(String sessionId) {
+        final PMSession session = new PMSession(sessionId);
+        if (sessions.putIfAbsent(sessionId, session) != null) {
+            return null;
+        }
+        registered.incrementAndGet();
+        schedule(sessionId, session.getLastAccessTime() + timeout);
+        return session;
+    }
+
+    /**
+     * Adds an existing session, keeping its last access
+     * @param session The session
+     */
+    public void add(PMSession session) {
+        if (sessions.putIfAbsent(session.getId(), session) == null) {
+            schedule(session.getId(), session.getLastAccessTime() + timeout);
+        }
+    }
+
+    /**
+     * Return the session for the given id, updating its last access
+     * @param sessionId The session id
+     * @return The session or null
+     */
+    public PMSession touch(String sessionId) {
+        final PMSession s = sessions.get(sessionId);
+        if (s != null) {
+            s.touch();
+        }
+        return s;
+    }
+
+    /**
+     * Removes the session with the given id
+     * @param sessionId The session id
+     * @return The removed session or null
+     */
+    public PMSession remove(String sessionId) {
+        final PMSession s = sessions.remove(sessionId);
+        if (s != null) {
+            removed.incrementAndGet();
+        }
+        return s;
+    }
+
+    /**
+     * Process every bucket whose time has come. Public for testing and
+     * manual purge.
+     * @param now Current time in milliseconds
+     */
+    public synchronized void sweep(long now) {
+        final long current = now / tick;
+        long count = 0;
+        long t = Math.max(lastTick + 1, current - wheel.length + 1);
+        for (; t <= current; t++) {
+            final Queue<String> bucket = wheel[(int) (t % wheel.length)];
+            //Only the elements present now, rescheduled ones may land here again
+            for (int n = bucket.size(); n > 0; n--) {
+                final String id = bucket.poll();
+                if (id == null) {
+                    break;
+                }
+                final PMSession s = sessions.get(id);
+                if (s == null) {
+                    continue;
+                }
+                final long deadline = s.getLastAccessTime() + timeout;
+                if (deadline <= now) {
+                    if (sessions.remove(id) != null) {
+                        count++;
+                    }
+                } else {
+                    //Never back into a bucket already swept
+                    schedule(id, Math.max(deadline, (current + 1) * tick));
+                }
+            }
+        }
+        lastTick = current;
+        expired.addAndGet(count);
+        lastSweepExpired = count;
+        lastSweepTime = now;
+    }
+
+    private void schedule(String id, long deadline) {
+        wheel[(int) ((deadline / tick) % wheel.length)].add(id);
+    }
+
+    /**
+     * Read only view of the sessions
+     * @return The sessions map
+     */
+    public Map<String, PMSession> getSessions() {
+        return Collections.unmodifiableMap(sessions);
+    }
+
+    /**
+     * @return Number of live sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return Number of sessions registered since startup
+     */
+    public long getRegisteredCount() {
+        return registered.get();
+    }
+
+    /**
+     * @return Number of sessions expired since startup
+     */
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    /**
+     * @return Number of sessions explicitly removed since startup
+     */
+    public long getRemovedCount() {
+        return removed.get();
+    }
+
+    /**
+     * @return Number of sessions expired in the last sweep
+     */
+    public long getLastSweepExpired() {
+        return lastSweepExpired;
+    }
+
+    /**
+     * @return Time of the last sweep
+     */
+    public long getLastSweepTime() {
+        return lastSweepTime;
+    }
+
+    /**
+     * Expiration rate
+     * @return Expired sessions per minute on the last sweep
+     */
+    public double getExpiryRate() {
+        return lastSweepExpired * 60000d / tick;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionRegistry [sessions=" + getSessionCount()
+                + ", registered=" + getRegisteredCount()
+                + ", expired=" + getExpiredCount()
+                + ", removed=" + getRemovedCount() + "]";
+    }
+}
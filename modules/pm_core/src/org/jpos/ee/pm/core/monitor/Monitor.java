@@ -78,19 +78,31 @@ public class Monitor extends Observable implements Runnable{
     }
 
     private Object actual = null;
+    private volatile boolean running = true;
+
+    /**
+     * Stops the monitor thread and detach all the observers
+     */
+    public void stop() {
+        running = false;
+        deleteObservers();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
 
     /**
      * Implemented from runnable
      */
     public void run() {
-        while(true){
+        while(running){
             if(countObservers()==0){
                 try {
                     Thread.sleep(Long.MAX_VALUE);
                 } catch (InterruptedException e) {}
             }else{
                 startWatching();
-                while(countObservers()>0){
+                while(running && countObservers()>0){
                     getNewLines();
                     try {
                         Thread.sleep(getDelay());
@@ -49,10 +49,8 @@ public class AddOperation extends OperationCommandSupport {
             if (ctx.getSelected() == null) {
                 throw new PMException("pm.instance.not.found");
             }
-            for (Field f : ctx.getEntity().getAllFields()) {
-                if (f.shouldDisplay(ctx.getOperation().getId())) {
-                    proccessField(ctx, f, ctx.getSelected());
-                }
+            for (Field f : ctx.getEntity().getLayout(ctx.getOperation().getId()).getFields()) {
+                proccessField(ctx, f, ctx.getSelected());
             }
             if (!ctx.getErrors().isEmpty()) {
                 throw new PMException();
@@ -72,7 +70,7 @@ public class AddOperation extends OperationCommandSupport {
     @Override
     protected void doExecute(PMContext ctx) throws PMException {
         Object instance = ctx.getSelected().getInstance();
-        ctx.getPresentationManager().debug(this, "Saving '" + ctx.getEntity().getId() + "' to Data Access");
+        ctx.getPresentationManager().debug(this, "Saving to Data Access: ", ctx.getEntity().getId());
         ctx.getEntity().getDataAccess().add(ctx, instance);
     }
 
@@ -0,0 +1,67 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.util.List;
+
+import org.jpos.ee.pm.core.EntityFilter;
+import org.jpos.ee.pm.core.PMContext;
+import org.jpos.ee.pm.core.PMException;
+
+/**
+ * Removes every selected item or every item that matches the filter.
+ *
+ * @author jpaoletti
+ * @see BulkOperationSupport
+ */
+public class BulkDeleteOperation extends BulkOperationSupport {
+
+    public BulkDeleteOperation(String operationId) {
+        super(operationId);
+    }
+
+    @Override
+    protected void doExecute(PMContext ctx) throws PMException {
+        super.doExecute(ctx);
+        ctx.getEntityContainer().setSelected(null);
+    }
+
+    @Override
+    protected long execute(PMContext ctx, List<Object> ids, int batchSize) throws PMException {
+        try {
+            return ctx.getEntity().getDataAccess().deleteAllById(ctx, ids, batchSize);
+        } catch (PMException e) {
+            throw e;
+        } catch (Exception e) {
+            ctx.getPresentationManager().error(e);
+            throw new PMException("pm.cant.delete");
+        }
+    }
+
+    @Override
+    protected long execute(PMContext ctx, EntityFilter filter, int batchSize) throws PMException {
+        try {
+            return ctx.getEntity().getDataAccess().deleteAll(ctx, filter, batchSize);
+        } catch (PMException e) {
+            throw e;
+        } catch (Exception e) {
+            ctx.getPresentationManager().error(e);
+            throw new PMException("pm.cant.delete");
+        }
+    }
+}
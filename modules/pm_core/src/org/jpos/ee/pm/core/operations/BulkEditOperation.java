@@ -0,0 +1,128 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jpos.core.ConfigurationException;
+import org.jpos.ee.pm.core.*;
+
+/**
+ * Sets the same values to some fields of every selected item or of every
+ * item that matches the filter. The form shows the fields of the operation
+ * layout on a blank instance and only the fields filled in there are
+ * changed. Values are converted and validated once, on the blank instance,
+ * and then copied to each item.
+ *
+ * @author jpaoletti
+ * @see BulkOperationSupport
+ */
+public class BulkEditOperation extends BulkOperationSupport {
+
+    public static final String PM_BULK_FIELDS = "PM_BULK_FIELDS";
+
+    public BulkEditOperation(String operationId) {
+        super(operationId);
+    }
+
+    @Override
+    protected boolean prepare(PMContext ctx) throws PMException {
+        super.prepare(ctx);
+        if (ctx.getParameter(FINISH) == null) {
+            //Creates a blank bean to hold the form values
+            try {
+                final Object obj = getPMService().getFactory().newInstance(ctx.getEntity().getClazz());
+                ctx.getEntityContainer().setSelected(new EntityInstanceWrapper(obj));
+                ctx.getEntityContainer().setSelectedNew(true);
+                return false;
+            } catch (ConfigurationException e) {
+                ctx.getPresentationManager().error(e);
+                throw new PMException("pm_core.unespected.error");
+            }
+        }
+        if (ctx.getSelected() == null) {
+            throw new PMException("pm.instance.not.found");
+        }
+        final List<Field> fields = new ArrayList<Field>();
+        for (Field f : ctx.getEntity().getLayout(ctx.getOperation().getId()).getFields()) {
+            if (isFilled(ctx, f)) {
+                proccessField(ctx, f, ctx.getSelected());
+                fields.add(f);
+            }
+        }
+        if (!ctx.getErrors().isEmpty()) {
+            throw new PMException();
+        }
+        if (fields.isEmpty()) {
+            throw new PMException("pm_core.bulk.no.fields");
+        }
+        ctx.put(PM_BULK_FIELDS, fields);
+        return true;
+    }
+
+    private boolean isFilled(PMContext ctx, Field field) {
+        for (Object value : getParameterValues(ctx, field)) {
+            if (value != null && value.toString().length() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doExecute(PMContext ctx) throws PMException {
+        super.doExecute(ctx);
+        ctx.getEntityContainer().setSelected(null);
+    }
+
+    @Override
+    protected long execute(PMContext ctx, List<Object> ids, int batchSize) throws PMException {
+        return ctx.getEntity().getDataAccess().updateAllById(ctx, ids, batchSize, new FieldCopier(ctx));
+    }
+
+    @Override
+    protected long execute(PMContext ctx, EntityFilter filter, int batchSize) throws PMException {
+        return ctx.getEntity().getDataAccess().updateAll(ctx, filter, batchSize, new FieldCopier(ctx));
+    }
+
+    /**
+     * Copies the filled fields of the blank instance to each item
+     */
+    private static class FieldCopier implements RowHandler {
+
+        private final List<Field> fields;
+        private final Object[] values;
+
+        FieldCopier(PMContext ctx) throws PMException {
+            final Object template = ctx.getSelected().getInstance();
+            fields = (List<Field>) ctx.get(PM_BULK_FIELDS);
+            values = new Object[fields.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ctx.getPresentationManager().get(template, fields.get(i).getProperty());
+            }
+        }
+
+        public boolean handle(PMContext ctx, Object instance) throws PMException {
+            for (int i = 0; i < values.length; i++) {
+                ctx.getPresentationManager().set(instance, fields.get(i).getProperty(), values[i]);
+            }
+            return true;
+        }
+    }
+}
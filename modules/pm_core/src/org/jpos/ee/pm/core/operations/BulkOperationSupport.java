@@ -0,0 +1,151 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.util.List;
+
+import org.jpos.ee.pm.core.*;
+
+/**
+ * Base of the operations that change many items at once, either every row
+ * selected in the list ("selected" target, the default) or every item that
+ * matches the container filter ("filter" target). Selected items are
+ * written by the identifiers recorded when they were selected, so rows added
+ * or removed meanwhile do not change the target. All of them are written in
+ * the operation transaction through the batch methods of the data access.
+ * <pre>
+ * {@code
+ * <operation id="bulkdelete" scope="selected">
+ *     <properties>
+ *         <property name="target" value="selected" />
+ *         <property name="batch-size" value="100" />
+ *     </properties>
+ * </operation>
+ * }
+ * </pre>
+ * The target is taken from the operation configuration. When it is "any",
+ * the request may choose the filter with the {@link #TARGET} parameter and
+ * the selected rows are the default.
+ *
+ * @author jpaoletti
+ */
+public abstract class BulkOperationSupport extends OperationCommandSupport {
+
+    public static final String TARGET = "target";
+    public static final String TARGET_SELECTED = "selected";
+    public static final String TARGET_FILTER = "filter";
+    public static final String TARGET_ANY = "any";
+    public static final String PM_BULK_COUNT = "PM_BULK_COUNT";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public BulkOperationSupport(String operationId) {
+        super(operationId);
+    }
+
+    @Override
+    protected void doExecute(PMContext ctx) throws PMException {
+        super.doExecute(ctx);
+        final Operation operation = ctx.getOperation();
+        if (operation == null) {
+            throw new PMException("pm_core.operation.not.defined");
+        }
+        if (ctx.getEntity().isWeak()) {
+            //Owner collections are not kept in sync by batch writes
+            throw new PMException("pm_core.bulk.weak");
+        }
+        final int batchSize = getBatchSize(operation);
+        final long count;
+        if (isFilterTarget(ctx)) {
+            count = execute(ctx, ctx.getEntityContainer().getFilter(), batchSize);
+        } else {
+            final List<Object> ids = ctx.getEntityContainer().getSelectedIds();
+            if (ids.isEmpty()) {
+                throw new PMException("pm_core.bulk.no.selection");
+            }
+            count = execute(ctx, ids, batchSize);
+        }
+        ctx.put(PM_BULK_COUNT, count);
+        ctx.getPresentationManager().debug(this, "Bulk " + operation.getId() + " items: ", count);
+    }
+
+    /**
+     * Changes the selected items
+     *
+     * @param ctx The context
+     * @param ids The identifiers of the selected items, in selection order
+     * @see EntityContainer#getSelectionKey(PMContext, Object)
+     * @param batchSize Number of items written together
+     * @return The number of changed items
+     * @throws PMException
+     */
+    protected abstract long execute(PMContext ctx, List<Object> items, int batchSize) throws PMException;
+
+    /**
+     * Changes every item that matches the filter
+     *
+     * @param ctx The context
+     * @param filter The container filter
+     * @param batchSize Number of items written together
+     * @return The number of changed items
+     * @throws PMException
+     */
+    protected abstract long execute(PMContext ctx, EntityFilter filter, int batchSize) throws PMException;
+
+    /**
+     * Clears the selection once the changes of the selected rows are
+     * committed
+     */
+    @Override
+    protected void internalExecute(PMContext ctx) throws PMException {
+        super.internalExecute(ctx);
+        if (ctx.get(PM_BULK_COUNT) != null && !isFilterTarget(ctx)) {
+            ctx.getEntityContainer().clearSelectedRows();
+        }
+    }
+
+    /**
+     * The target configured in the operation or, if the configuration allows
+     * any target, the one requested in the context
+     */
+    protected boolean isFilterTarget(PMContext ctx) {
+        final String target = (ctx.getOperation() == null) ? TARGET_SELECTED : ctx.getOperation().getConfig(TARGET, TARGET_SELECTED);
+        if (TARGET_ANY.equalsIgnoreCase(target)) {
+            return TARGET_FILTER.equalsIgnoreCase(ctx.getString(TARGET));
+        }
+        return TARGET_FILTER.equalsIgnoreCase(target);
+    }
+
+    private int getBatchSize(Operation operation) {
+        try {
+            final int n = Integer.parseInt(operation.getConfig("batch-size", String.valueOf(DEFAULT_BATCH_SIZE)));
+            return (n > 0) ? n : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    @Override
+    protected boolean openTransaction() {
+        return true;
+    }
+
+    @Override
+    protected boolean checkEntity() {
+        return true;
+    }
+}
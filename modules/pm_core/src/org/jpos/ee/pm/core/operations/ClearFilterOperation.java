@@ -34,5 +34,9 @@ public class ClearFilterOperation extends OperationCommandSupport {
     protected void doExecute(PMContext ctx) throws PMException {
         super.doExecute(ctx);
         ctx.getEntityContainer().setFilter(null);
+        if (ctx.getEntityContainer().getList() != null) {
+            ctx.getEntityContainer().getList().setKeyset(null);
+        }
+        ctx.getEntityContainer().clearSelectedRows();
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import org.jpos.ee.pm.core.ListManager;
+import org.jpos.ee.pm.core.PMContext;
+import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.PaginatedList;
+
+/**
+ * Reads the total of the container list, for entities with a deferred count.
+ * The total is left in the context ({@link #PM_LIST_TOTAL}) and in the list.
+ *
+ * @author jpaoletti
+ */
+public class CountOperation extends OperationCommandSupport {
+
+    public static final String PM_LIST_TOTAL = "PM_LIST_TOTAL";
+
+    public CountOperation(String operationId) {
+        super(operationId);
+    }
+
+    @Override
+    protected void doExecute(PMContext ctx) throws PMException {
+        super.doExecute(ctx);
+        final PaginatedList pmlist = ctx.getList();
+        final Long total = (pmlist == null) ? new ListManager().count(ctx) : new ListManager().count(ctx, pmlist);
+        ctx.put(PM_LIST_TOTAL, total);
+    }
+}
@@ -36,10 +36,8 @@ public class EditOperation extends OperationCommandSupport {
             if (ctx.getSelected() == null) {
                 throw new PMException("pm.instance.not.found");
             }
-            for (Field f : ctx.getEntity().getAllFields()) {
-                if (f.shouldDisplay(ctx.getOperation().getId())) {
-                    proccessField(ctx, f, ctx.getSelected());
-                }
+            for (Field f : ctx.getEntity().getLayout(ctx.getOperation().getId()).getFields()) {
+                proccessField(ctx, f, ctx.getSelected());
             }
             if (!ctx.getErrors().isEmpty()) {
                 throw new PMException();
@@ -52,7 +50,7 @@ public class EditOperation extends OperationCommandSupport {
     @Override
     protected void doExecute(PMContext ctx) throws PMException {
         super.doExecute(ctx);
-        ctx.getPresentationManager().debug(this, "Updating '" + ctx.getEntity().getId() + "' to Data Access");
+        ctx.getPresentationManager().debug(this, "Updating to Data Access: ", ctx.getEntity().getId());
         ctx.getEntity().getDataAccess().update(ctx, ctx.getSelected().getInstance());
     }
 
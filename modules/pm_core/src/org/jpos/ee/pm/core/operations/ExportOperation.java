@@ -0,0 +1,253 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.jpos.ee.Constants;
+import org.jpos.ee.pm.converter.Converter;
+import org.jpos.ee.pm.converter.IgnoreConvertionException;
+import org.jpos.ee.pm.converter.ShowToStringConverter;
+import org.jpos.ee.pm.core.*;
+
+/**
+ * Writes every item that matches the container filter and list order as
+ * comma (csv) or tab (tsv) separated values. Items are streamed from the
+ * data access so memory use does not depend on the number of rows.
+ * <pre>
+ * {@code
+ * <operation id="export" scope="general">
+ *     <properties>
+ *         <property name="format" value="csv" />
+ *         <property name="batch-size" value="500" />
+ *         <property name="header" value="true" />
+ *     </properties>
+ * </operation>
+ * }
+ * </pre>
+ * Cells are visualized with the field converter for this operation or as
+ * plain text when there is none. The writer is taken from the context
+ * ({@link #PM_EXPORT_WRITER}) and header names are localized with
+ * {@link #PM_EXPORT_LOCALE} if present.
+ *
+ * @author jpaoletti
+ */
+public class ExportOperation extends OperationCommandSupport {
+
+    public static final String PM_EXPORT_WRITER = "PM_EXPORT_WRITER";
+    public static final String PM_EXPORT_FORMAT = "format";
+    public static final String PM_EXPORT_COUNT = "PM_EXPORT_COUNT";
+    public static final String PM_EXPORT_LOCALE = "PM_EXPORT_LOCALE";
+    public static final String CSV = "csv";
+    public static final String TSV = "tsv";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final String VOID = "void.jsp?text=";
+    private static final Pattern JSP = Pattern.compile("[\\w.-]+\\.jsp(\\?.*)?", Pattern.DOTALL);
+
+    public ExportOperation(String operationId) {
+        super(operationId);
+    }
+
+    @Override
+    protected void doExecute(PMContext ctx) throws PMException {
+        super.doExecute(ctx);
+        final Operation operation = ctx.getOperation();
+        if (operation == null) {
+            throw new PMException("pm_core.operation.not.defined");
+        }
+        final Writer writer = (Writer) ctx.get(PM_EXPORT_WRITER);
+        if (writer == null) {
+            throw new PMException("pm_core.export.no.output");
+        }
+        final Entity entity = ctx.getEntity();
+        final String format = getFormat(ctx);
+        final int batchSize = getBatchSize(operation);
+        FieldLayout layout = entity.getLayout(operation.getId());
+        if (layout.size() == 0) {
+            layout = entity.getLayout("list");
+        }
+        final PaginatedList pmlist = ctx.getEntityContainer().getList();
+        if (pmlist != null) {
+            ctx.put(Constants.PM_LIST_ORDER, pmlist.getOrder());
+            ctx.put(Constants.PM_LIST_ASC, !pmlist.isDesc());
+        }
+        final Converter[] converters = new Converter[layout.size()];
+        for (int i = 0; i < converters.length; i++) {
+            final Field field = layout.getField(i);
+            converters[i] = (field.getConverters() == null) ? null : field.getConverters().getConverterForOperation(operation.getId());
+            if (converters[i] == null) {
+                converters[i] = ShowToStringConverter.INSTANCE;
+            }
+        }
+        final RowWriter rows = new RowWriter(writer, TSV.equalsIgnoreCase(format) ? '\t' : ',', layout, converters, batchSize);
+        try {
+            if (!"false".equalsIgnoreCase(operation.getConfig("header", "true"))) {
+                final Locale locale = (Locale) ctx.get(PM_EXPORT_LOCALE);
+                rows.header(entity, (locale == null) ? Locale.getDefault() : locale);
+            }
+            final long count = entity.getDataAccess().iterate(ctx, ctx.getEntityContainer().getFilter(), batchSize, rows);
+            writer.flush();
+            ctx.put(PM_EXPORT_COUNT, count);
+            ctx.getPresentationManager().debug(this, "Exported rows: ", count);
+        } catch (IOException e) {
+            throw new PMException(e);
+        }
+    }
+
+    /**
+     * The format requested in the context or configured in the operation
+     * @param ctx The context
+     * @return csv or tsv
+     */
+    public static String getFormat(PMContext ctx) throws PMException {
+        final String f = ctx.getString(PM_EXPORT_FORMAT);
+        if (f != null && (CSV.equalsIgnoreCase(f) || TSV.equalsIgnoreCase(f))) {
+            return f.toLowerCase();
+        }
+        final Operation op = ctx.getOperation();
+        return (op == null) ? CSV : op.getConfig("format", CSV).toLowerCase();
+    }
+
+    private int getBatchSize(Operation operation) {
+        try {
+            final int n = Integer.parseInt(operation.getConfig("batch-size", String.valueOf(DEFAULT_BATCH_SIZE)));
+            return (n > 0) ? n : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    @Override
+    protected boolean openTransaction() {
+        return false;
+    }
+
+    /**
+     * Writes each handled item as a line
+     */
+    private static class RowWriter implements RowHandler {
+
+        private final Writer writer;
+        private final char separator;
+        private final FieldLayout layout;
+        private final Converter[] converters;
+        private final int flushEvery;
+        private long rows;
+
+        RowWriter(Writer writer, char separator, FieldLayout layout, Converter[] converters, int flushEvery) {
+            this.writer = writer;
+            this.separator = separator;
+            this.layout = layout;
+            this.converters = converters;
+            this.flushEvery = flushEvery;
+        }
+
+        void header(Entity entity, Locale locale) throws IOException {
+            for (int i = 0; i < layout.size(); i++) {
+                if (i > 0) {
+                    writer.write(separator);
+                }
+                final String key = "pm.field." + entity.getId() + "." + layout.getField(i).getId();
+                cell(PresentationManager.getMessage(locale, key));
+            }
+            writer.write("\r\n");
+        }
+
+        public boolean handle(PMContext ctx, Object instance) throws PMException {
+            try {
+                ctx.setEntityInstance(instance);
+                final Object[] values = ctx.getPresentationManager().getAll(instance, layout.getFields());
+                for (int i = 0; i < converters.length; i++) {
+                    if (i > 0) {
+                        writer.write(separator);
+                    }
+                    cell(visualize(ctx, layout.getField(i), converters[i], values[i]));
+                }
+                writer.write("\r\n");
+                if (++rows % flushEvery == 0) {
+                    flush();
+                }
+                return true;
+            } catch (IOException e) {
+                //Client went away
+                PresentationManager.getPm().error(e);
+                return false;
+            }
+        }
+
+        /**
+         * A print writer (as the servlet response one) keeps its errors, so
+         * they are checked to stop when the client went away
+         */
+        void flush() throws IOException {
+            writer.flush();
+            if (writer instanceof PrintWriter && ((PrintWriter) writer).checkError()) {
+                throw new IOException("Error writing the export");
+            }
+        }
+
+        private String visualize(PMContext ctx, Field field, Converter converter, Object value) throws PMException {
+            try {
+                field.prepare(ctx, value);
+                ctx.setExtraData("");
+                final Object o = converter.visualize(ctx);
+                return (o == null) ? "" : text(o.toString());
+            } catch (IgnoreConvertionException e) {
+                return "";
+            }
+        }
+
+        /**
+         * Converters of the web modules answer the jsp that shows the value.
+         * The text of "void.jsp" is written as the jsp would show it and any
+         * other jsp is left out, since it can only be rendered in a page.
+         */
+        private String text(String s) {
+            if (s.startsWith(VOID)) {
+                final int end = s.indexOf('&');
+                final String text = s.substring(VOID.length(), (end < 0) ? s.length() : end);
+                try {
+                    return URLDecoder.decode(text, "UTF-8");
+                } catch (Exception e) {
+                    return text;
+                }
+            }
+            return JSP.matcher(s).matches() ? "" : s;
+        }
+
+        private void cell(String s) throws IOException {
+            if (s == null) {
+                return;
+            }
+            if (separator == '\t') {
+                writer.write(s.replace('\t', ' ').replace('\r', ' ').replace('\n', ' '));
+            } else if (s.indexOf(separator) >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(s.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(s);
+            }
+        }
+    }
+}
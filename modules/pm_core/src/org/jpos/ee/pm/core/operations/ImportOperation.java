@@ -0,0 +1,465 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jpos.core.ConfigurationException;
+import org.jpos.ee.pm.converter.Converter;
+import org.jpos.ee.pm.converter.IgnoreConvertionException;
+import org.jpos.ee.pm.core.*;
+
+/**
+ * Adds an item for each line of comma (csv) or tab (tsv) separated values.
+ * Lines are streamed from the reader, so memory use does not depend on the
+ * size of the file.
+ * <pre>
+ * {@code
+ * <operation id="import" scope="general">
+ *     <properties>
+ *         <property name="format" value="csv" />
+ *         <property name="header" value="true" />
+ *         <property name="batch-size" value="100" />
+ *         <property name="commit-interval" value="1000" />
+ *         <property name="max-rejected" value="1000" />
+ *     </properties>
+ * </operation>
+ * }
+ * </pre>
+ * With a header the first line holds the field ids of the columns, otherwise
+ * columns follow the operation layout (or the "add" layout if it is empty).
+ * Each cell goes through the field converter for this operation, or the one
+ * for "add", and the field validators. Rows that fail are left out and
+ * reported in {@link #PM_IMPORT_REPORT}. The others are inserted in batches
+ * and committed every commit-interval rows; when a commit fails its rows are
+ * added again one per transaction to single out the ones the data source
+ * refuses.
+ *
+ * @author jpaoletti
+ */
+public class ImportOperation extends OperationCommandSupport {
+
+    public static final String PM_IMPORT_READER = "PM_IMPORT_READER";
+    public static final String PM_IMPORT_REPORT = "PM_IMPORT_REPORT";
+    public static final String ADD = "add";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_COMMIT_INTERVAL = 1000;
+    public static final int DEFAULT_MAX_REJECTED = 1000;
+
+    public ImportOperation(String operationId) {
+        super(operationId);
+    }
+
+    @Override
+    protected boolean prepare(PMContext ctx) throws PMException {
+        super.prepare(ctx);
+        //Without input there is only the operation form to show
+        return ctx.get(PM_IMPORT_READER) != null;
+    }
+
+    @Override
+    protected void doExecute(PMContext ctx) throws PMException {
+        super.doExecute(ctx);
+        final Operation operation = ctx.getOperation();
+        if (operation == null) {
+            throw new PMException("pm_core.operation.not.defined");
+        }
+        final Reader reader = (Reader) ctx.get(PM_IMPORT_READER);
+        if (ctx.getEntity().isWeak()) {
+            //Owner collections are not kept in sync by batch writes
+            throw new PMException("pm_core.bulk.weak");
+        }
+        final ImportReport report = new ImportReport(getInt(operation, "max-rejected", DEFAULT_MAX_REJECTED));
+        ctx.put(PM_IMPORT_REPORT, report);
+        final RowReader rows = new RowReader(reader, ExportOperation.TSV.equals(ExportOperation.getFormat(ctx)) ? '\t' : ',');
+        final Importer importer = new Importer(ctx, report);
+        try {
+            String[] values = rows.next();
+            if (!"false".equalsIgnoreCase(operation.getConfig("header", "true"))) {
+                importer.map(values);
+                values = rows.next();
+            } else {
+                importer.map(null);
+            }
+            importer.begin();
+            while (values != null) {
+                if (values.length > 1 || values[0].length() > 0) {
+                    report.read();
+                    importer.add(rows.getLine(), values);
+                }
+                values = rows.next();
+            }
+            importer.commit(false);
+            ctx.getPresentationManager().debug(this, "Imported rows: ", report.getImported());
+        } catch (IOException e) {
+            throw new PMException(e);
+        } finally {
+            importer.end();
+            if (report.getImported() > 0) {
+                ctx.getPresentationManager().invalidate(ctx.getEntity().getId());
+            }
+        }
+    }
+
+    private int getInt(Operation operation, String name, int def) {
+        try {
+            final int n = Integer.parseInt(operation.getConfig(name, String.valueOf(def)));
+            return (n > 0) ? n : def;
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /**
+     * Transactions are handled by the import itself
+     */
+    @Override
+    protected boolean openTransaction() {
+        return false;
+    }
+
+    @Override
+    protected boolean checkEntity() {
+        return true;
+    }
+
+    /**
+     * Builds the items of the rows and writes them. Rows of the current
+     * commit interval are kept until it is committed.
+     */
+    private class Importer {
+
+        private final PMContext ctx;
+        private final ImportReport report;
+        private final Entity entity;
+        private final PersistenceManager persistence;
+        private final int batchSize;
+        private final int commitInterval;
+        private final List<Object> items = new ArrayList<Object>();
+        private final List<String[]> pending = new ArrayList<String[]>();
+        private final List<Long> pendingLines = new ArrayList<Long>();
+        private Field[] fields;
+        private Converter[] converters;
+        private Object tx;
+
+        Importer(PMContext ctx, ImportReport report) throws PMException {
+            this.ctx = ctx;
+            this.report = report;
+            this.entity = ctx.getEntity();
+            this.persistence = ctx.getPresentationManager().getPersistenceManager();
+            this.batchSize = getInt(ctx.getOperation(), "batch-size", DEFAULT_BATCH_SIZE);
+            this.commitInterval = getInt(ctx.getOperation(), "commit-interval", DEFAULT_COMMIT_INTERVAL);
+        }
+
+        /**
+         * Resolve the field and converter of each column
+         * @param header Field ids of the columns or null to use the layout
+         */
+        void map(String[] header) throws PMException {
+            FieldLayout layout = entity.getLayout(getOperationId());
+            if (layout.size() == 0) {
+                layout = entity.getLayout(ADD);
+            }
+            if (header == null) {
+                fields = layout.getFields().toArray(new Field[layout.size()]);
+            } else {
+                fields = new Field[header.length];
+                for (int i = 0; i < header.length; i++) {
+                    for (Field f : layout.getFields()) {
+                        if (f.getId().equalsIgnoreCase(header[i].trim())) {
+                            fields[i] = f;
+                            break;
+                        }
+                    }
+                    if (fields[i] == null) {
+                        ctx.getErrors().add(new PMMessage(PMCoreObject.ENTITY, "pm_core.import.unknown.column", header[i]));
+                    }
+                }
+            }
+            converters = new Converter[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null && fields[i].getConverters() != null) {
+                    converters[i] = fields[i].getConverters().getConverterForOperation(getOperationId());
+                    if (converters[i] == null) {
+                        converters[i] = fields[i].getConverters().getConverterForOperation(ADD);
+                    }
+                }
+                if (fields[i] != null && converters[i] == null) {
+                    ctx.getErrors().add(new PMMessage(PMCoreObject.ENTITY, "pm_core.import.no.converter", fields[i].getId()));
+                }
+            }
+            if (!ctx.getErrors().isEmpty()) {
+                throw new PMException();
+            }
+        }
+
+        void add(long line, String[] values) throws PMException {
+            final Object instance = build(line, values);
+            if (instance == null) {
+                return;
+            }
+            pending.add(values);
+            pendingLines.add(line);
+            items.add(instance);
+            if (items.size() >= batchSize) {
+                save();
+            }
+            if (pending.size() >= commitInterval) {
+                commit(true);
+            }
+        }
+
+        /**
+         * A new item with the converted values of the row, or null if the
+         * row is rejected
+         */
+        private Object build(long line, String[] values) throws PMException {
+            final Object instance;
+            try {
+                instance = getPMService().getFactory().newInstance(entity.getClazz());
+            } catch (ConfigurationException e) {
+                ctx.getPresentationManager().error(e);
+                throw new PMException("pm_core.unespected.error");
+            }
+            final EntityInstanceWrapper wrapper = new EntityInstanceWrapper(instance);
+            final List<PMMessage> errors = ctx.getErrors();
+            final int mark = errors.size();
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == null) {
+                    continue;
+                }
+                final String value = (i < values.length) ? values[i] : "";
+                try {
+                    final Object converted = getConvertedValue(ctx, fields[i], value, wrapper, converters[i]);
+                    doProcessField(wrapper, 0, converters[i], ctx, fields[i], converted);
+                } catch (IgnoreConvertionException e) {
+                    //Do nothing, just ignore conversion.
+                } catch (PMException e) {
+                    errors.add(new PMMessage(fields[i].getId(), (e.getKey() == null) ? "pm_core.import.invalid.value" : e.getKey(), value));
+                } catch (RuntimeException e) {
+                    errors.add(new PMMessage(fields[i].getId(), "pm_core.import.invalid.value", value));
+                }
+            }
+            if (errors.size() > mark) {
+                final List<PMMessage> rowErrors = errors.subList(mark, errors.size());
+                report.reject(line, values, new ArrayList<PMMessage>(rowErrors));
+                rowErrors.clear();
+                return null;
+            }
+            return instance;
+        }
+
+        void begin() throws PMException {
+            try {
+                tx = persistence.startTransaction(ctx);
+            } catch (Exception e) {
+                ctx.getPresentationManager().error(e);
+                throw new PMException(e);
+            }
+        }
+
+        private void save() throws PMException {
+            try {
+                entity.getDataAccess().addAll(ctx, items, batchSize);
+                items.clear();
+            } catch (Exception e) {
+                ctx.getPresentationManager().debug(ImportOperation.this, e);
+                retry();
+            }
+        }
+
+        /**
+         * Commits the rows read since the last commit
+         * @param more true to start a new transaction for the next rows
+         */
+        void commit(boolean more) throws PMException {
+            if (!items.isEmpty()) {
+                save();
+            }
+            if (!pending.isEmpty()) {
+                try {
+                    persistence.commit(ctx, tx);
+                    tx = null;
+                    report.imported(pending.size());
+                    pending.clear();
+                    pendingLines.clear();
+                } catch (Exception e) {
+                    ctx.getPresentationManager().debug(ImportOperation.this, e);
+                    retry();
+                }
+            }
+            if (more && tx == null) {
+                begin();
+            } else if (!more) {
+                end();
+            }
+        }
+
+        /**
+         * Rolls back the current interval and adds its rows again one per
+         * transaction, rejecting the ones that can not be saved
+         */
+        private void retry() throws PMException {
+            rollback();
+            items.clear();
+            for (int i = 0; i < pending.size(); i++) {
+                final long line = pendingLines.get(i);
+                final String[] values = pending.get(i);
+                final Object instance = build(line, values);
+                if (instance == null) {
+                    continue;
+                }
+                begin();
+                try {
+                    entity.getDataAccess().add(ctx, instance);
+                    persistence.commit(ctx, tx);
+                    tx = null;
+                    report.imported(1);
+                } catch (Exception e) {
+                    rollback();
+                    final String key = (e instanceof PMException && ((PMException) e).getKey() != null) ? ((PMException) e).getKey() : "pm_core.import.cannot.save";
+                    final List<PMMessage> messages = new ArrayList<PMMessage>();
+                    messages.add(new PMMessage(PMCoreObject.ENTITY, key, String.valueOf(e.getMessage())));
+                    report.reject(line, values, messages);
+                }
+            }
+            pending.clear();
+            pendingLines.clear();
+            begin();
+        }
+
+        private void rollback() {
+            if (tx != null) {
+                try {
+                    persistence.rollback(ctx, tx);
+                } catch (Exception e) {
+                    ctx.getPresentationManager().error(e);
+                }
+                tx = null;
+            }
+        }
+
+        /**
+         * Drops whatever was not committed
+         */
+        void end() {
+            rollback();
+            items.clear();
+            pending.clear();
+            pendingLines.clear();
+        }
+    }
+
+    /**
+     * Reads the rows of separated values. Quoted csv cells may hold
+     * separators, doubled quotes and line breaks.
+     */
+    static class RowReader {
+
+        private final Reader reader;
+        private final char separator;
+        private int pushback = -2;
+        private long line = 1;
+        private long rowLine;
+
+        RowReader(Reader reader, char separator) throws IOException {
+            this.reader = (reader instanceof BufferedReader) ? reader : new BufferedReader(reader);
+            this.separator = separator;
+            //Skip byte order mark
+            final int c = this.reader.read();
+            if (c != '\uFEFF') {
+                pushback = c;
+            }
+        }
+
+        private int read() throws IOException {
+            if (pushback != -2) {
+                final int c = pushback;
+                pushback = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        /**
+         * @return Line where the last read row starts
+         */
+        long getLine() {
+            return rowLine;
+        }
+
+        /**
+         * @return The cells of the next row or null at the end
+         */
+        String[] next() throws IOException {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+            rowLine = line;
+            final List<String> cells = new ArrayList<String>();
+            final StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        //Unterminated quote, take what was read
+                        quoted = false;
+                        continue;
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c == '"') {
+                            cell.append('"');
+                            c = read();
+                        } else {
+                            quoted = false;
+                        }
+                        continue;
+                    }
+                    if (c == '\n') {
+                        line++;
+                    }
+                    cell.append((char) c);
+                } else if (c < 0 || c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        final int d = read();
+                        if (d != '\n') {
+                            pushback = d;
+                        }
+                    }
+                    line++;
+                    cells.add(cell.toString());
+                    return cells.toArray(new String[cells.size()]);
+                } else if (c == separator) {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '"' && cell.length() == 0 && separator != '\t') {
+                    quoted = true;
+                } else {
+                    cell.append((char) c);
+                }
+                c = read();
+            }
+        }
+    }
+}
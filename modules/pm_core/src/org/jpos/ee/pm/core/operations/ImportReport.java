@@ -0,0 +1,133 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jpos.ee.pm.core.PMMessage;
+
+/**
+ * Outcome of an import: how many rows were read, added and rejected, and
+ * the rejected rows with the reasons. Only the first rejected rows are kept
+ * so a bad file does not fill the memory; the counters are always exact.
+ *
+ * @author jpaoletti
+ * @see ImportOperation
+ */
+public class ImportReport {
+
+    private final int maxRejections;
+    private final List<Rejection> rejections = new ArrayList<Rejection>();
+    private long rows;
+    private long imported;
+    private long rejected;
+
+    public ImportReport(int maxRejections) {
+        this.maxRejections = maxRejections;
+    }
+
+    void read() {
+        rows++;
+    }
+
+    void imported(long n) {
+        imported += n;
+    }
+
+    void reject(long line, String[] values, List<PMMessage> messages) {
+        rejected++;
+        if (rejections.size() < maxRejections) {
+            rejections.add(new Rejection(line, values, messages));
+        }
+    }
+
+    /**
+     * @return Data rows read, not counting the header and blank lines
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Rows added and committed
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * @return Rows left out
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return The first rejected rows, in file order
+     */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /**
+     * @return true if there are more rejected rows than the kept ones
+     */
+    public boolean isTruncated() {
+        return rejected > rejections.size();
+    }
+
+    /**
+     * A rejected row
+     */
+    public static class Rejection {
+
+        private final long line;
+        private final List<String> values;
+        private final List<PMMessage> messages;
+
+        Rejection(long line, String[] values, List<PMMessage> messages) {
+            this.line = line;
+            this.values = Arrays.asList(values);
+            this.messages = messages;
+        }
+
+        /**
+         * @return Line of the file where the row starts
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * @return The cells of the row as read
+         */
+        public List<String> getValues() {
+            return values;
+        }
+
+        /**
+         * @return Why the row was rejected
+         */
+        public List<PMMessage> getMessages() {
+            return messages;
+        }
+    }
+}
@@ -27,9 +27,7 @@ import org.jpos.ee.pm.converter.IgnoreConvertionException;
 import org.jpos.ee.pm.core.*;
 import org.jpos.ee.pm.validator.ValidationResult;
 import org.jpos.ee.pm.validator.Validator;
-import org.jpos.util.DisplacedList;
 import org.jpos.util.LogEvent;
-import org.jpos.util.Logger;
 
 /**
  *
@@ -71,17 +69,21 @@ public class OperationCommandSupport implements OperationCommand {
     }
 
     protected void internalExecute(PMContext ctx) throws PMException {
-        ctx.getPresentationManager().debug(this, "Executing operation " + getOperationId());
+        ctx.getPresentationManager().debug(this, "Executing operation ", getOperationId());
         /* Validate de operation*/
         if (ctx.getSelected() != null) {
             validate(ctx);
         }
 
+        if (openTransaction() && ctx.hasEntityContainer()) {
+            //The operation may change the selected instance, reload it next time
+            ctx.getEntityContainer().setSelectedVersion(null);
+        }
         Object tx = null;
         try {
             if (openTransaction()) {
                 tx = ctx.getPresentationManager().getPersistenceManager().startTransaction(ctx);
-                ctx.getPresentationManager().debug(this, "Started Transaction " + tx);
+                ctx.getPresentationManager().debug(this, "Started Transaction ", tx);
             }
             if (operation != null && operation.getContext() != null) {
                 operation.getContext().preExecute(ctx);
@@ -99,7 +101,7 @@ public class OperationCommandSupport implements OperationCommand {
             }*/
             try {
                 if (tx != null) {
-                    ctx.getPresentationManager().debug(this, "Commiting Transaction " + tx);
+                    ctx.getPresentationManager().debug(this, "Commiting Transaction ", tx);
                     ctx.getPresentationManager().getPersistenceManager().commit(ctx, tx);
                 }
             } catch (Exception e) {
@@ -107,6 +109,10 @@ public class OperationCommandSupport implements OperationCommand {
                 throw new PMException("pm_core.cannot.commit.txn");
             }
             tx = null;
+            if (openTransaction() && ctx.hasEntity()) {
+                //Cached totals and pages of the entity may be wrong now
+                ctx.getPresentationManager().invalidate(ctx.getEntity().getId());
+            }
         } catch (PMException e) {
             throw e;
         } catch (Exception e) {
@@ -114,7 +120,7 @@ public class OperationCommandSupport implements OperationCommand {
             throw new PMException(e);
         } finally {
             if (tx != null) {
-                ctx.getPresentationManager().debug(this, "Rolling Back Transaction " + tx);
+                ctx.getPresentationManager().debug(this, "Rolling Back Transaction ", tx);
                 try {
                     ctx.getPresentationManager().getPersistenceManager().rollback(ctx, tx);
                 } catch (Exception e) {
@@ -151,17 +157,15 @@ public class OperationCommandSupport implements OperationCommand {
         String item = ctx.getString(PM_ITEM);
         if (item != null && !item.trim().equals("")) {
             Integer index = Integer.parseInt(item);
-            ctx.getPresentationManager().debug(this, "Getting row index: " + index);
-            if (index != null) {
-                DisplacedList<Object> al = new DisplacedList<Object>();
-                al.addAll(ctx.getList().getContents());
-                al.setDisplacement(ctx.getList().getContents().getDisplacement());
-                ctx.getEntityContainer().setSelected(new EntityInstanceWrapper(al.get(index)));
+            ctx.getPresentationManager().debug(this, "Getting row index: ", index);
+            final Object row = ctx.getList().getContents().getRow(index);
+            if (row != null) {
+                ctx.getEntityContainer().setSelected(new EntityInstanceWrapper(row));
             }
         } else {
             String identified = (String) ctx.getParameter("identified");
             if (identified != null && identified.trim().compareTo("") != 0) {
-                ctx.getPresentationManager().debug(this, "Getting row identified by: " + identified);
+                ctx.getPresentationManager().debug(this, "Getting row identified by: ", identified);
                 String[] ss = identified.split(":");
                 //TODO Throw exception when the size of this is not 2
                 if (ss.length != 2) {
@@ -215,21 +219,7 @@ public class OperationCommandSupport implements OperationCommand {
         if (entityContainer == null) {
             return null;
         }
-        EntityInstanceWrapper origin = entityContainer.getSelected();
-
-        if (origin != null) {
-            if (!entityContainer.isSelectedNew()) {
-                Object o = ctx.getEntity().getDataAccess().refresh(ctx, origin.getInstance());
-                entityContainer.setSelected(new EntityInstanceWrapper(o));
-                if (o == null) {
-                    ctx.getPresentationManager().warn("Fresh instance is null while origin was '" + origin.getInstance() + "'");
-                }
-                return o;
-            } else {
-                return origin.getInstance();
-            }
-        }
-        return null;
+        return entityContainer.refreshSelected(ctx);
     }
 
     protected Collection<Object> getOwnerCollection(PMContext ctx) throws PMException {
@@ -308,23 +298,34 @@ public class OperationCommandSupport implements OperationCommand {
     }
 
     protected void proccessField(PMContext ctx, Field field, EntityInstanceWrapper wrapper) throws PMException {
-        LogEvent evt = ctx.getPresentationManager().getLog().createDebug();
-        evt.addMessage("Field [" + field.getId() + "] ");
+        if (ctx.hasEntityContainer() && ctx.getEntityContainer().getSelected() == wrapper) {
+            //The selected instance gets values that are not in the data source
+            //even if the operation fails, so it is reloaded next time
+            ctx.getEntityContainer().setSelectedVersion(null);
+        }
+        final LogEvent evt = ctx.getPresentationManager().createDebug();
+        if (evt != null) {
+            evt.addMessage("Field [" + field.getId() + "] ");
+        }
         final List<Object> parameterValues = getParameterValues(ctx, field);
+        final Converter converter = (field.getConverters() == null) ? null : field.getConverters().getConverterForOperation(ctx.getOperation().getId());
         int i = 0;
         for (Object value : parameterValues) {
-            evt.addMessage("    Object to convert: " + value);
+            if (evt != null) {
+                evt.addMessage("    Object to convert: " + value);
+            }
             try {
-                final Converter converter = field.getConverters().getConverterForOperation(ctx.getOperation().getId());
                 Object converted = getConvertedValue(ctx, field, value, wrapper, converter);
-                evt.addMessage("    Object converted: " + converted);
+                if (evt != null) {
+                    evt.addMessage("    Object converted: " + converted);
+                }
                 doProcessField(wrapper, i, converter, ctx, field, converted);
             } catch (IgnoreConvertionException e) {
                 //Do nothing, just ignore conversion.
             }
             i++;
         }
-        Logger.log(evt);
+        ctx.getPresentationManager().debug(evt);
     }
 
     protected void doProcessField(EntityInstanceWrapper wrapper, int i, final Converter converter, PMContext ctx, Field field, Object converted) throws PMException {
@@ -22,7 +22,6 @@ import java.util.List;
 import org.jpos.ee.Constants;
 import org.jpos.ee.pm.converter.*;
 import org.jpos.ee.pm.core.*;
-import org.jpos.util.DisplacedList;
 
 /**
  *
@@ -46,10 +45,8 @@ public class PMFilterOperation extends OperationCommandSupport {
         } else {
             final EntityFilter filter = ctx.getEntityContainer().getFilter();
             filter.clear();
-            for (Field field : ctx.getEntity().getAllFields()) {
-                if (field.shouldDisplay(ctx.getOperation().getId())) {
-                    filter.addFilter(field.getId(), getFilterValues(ctx, field), getFilterOperation(ctx, field));
-                }
+            for (Field field : ctx.getEntity().getLayout(ctx.getOperation().getId()).getFields()) {
+                filter.addFilter(field.getId(), getFilterValues(ctx, field), getFilterOperation(ctx, field));
             }
             filter.process(ctx.getEntity());
             return true;
@@ -60,14 +57,13 @@ public class PMFilterOperation extends OperationCommandSupport {
     protected void doExecute(PMContext ctx) throws PMException {
         super.doExecute(ctx);
         PaginatedList pmlist = ctx.getList();
-        DisplacedList<Object> contents = new DisplacedList<Object>();
+        pmlist.setKeyset(null);
+        ctx.getEntityContainer().clearSelectedRows();
         Long total = null;
         ctx.put(Constants.PM_LIST_ORDER, pmlist.getOrder());
         ctx.put(Constants.PM_LIST_ASC, !pmlist.isDesc());
-        contents.addAll((List<Object>) ctx.getEntity().getList(ctx, ctx.getEntityContainer().getFilter(), pmlist.from(), pmlist.rpp()));
-        if (!ctx.getEntity().getNoCount()) {
-            total = ctx.getEntity().getDataAccess().count(ctx);
-        }
+        final List<Object> contents = (List<Object>) ctx.getEntity().getList(ctx, ctx.getEntityContainer().getFilter(), pmlist.from(), pmlist.rpp());
+        total = new ListManager().getTotal(ctx, pmlist);
         PaginatedList pmList = ctx.getList();
         pmList.setContents(contents);
         pmList.setTotal(total);
@@ -109,10 +105,10 @@ public class PMFilterOperation extends OperationCommandSupport {
     private List<Object> getFilterValues(PMContext ctx, Field field) throws ConverterException {
         final List<Object> parameterValues = getParameterValues(ctx, field);
         final List<Object> values = new ArrayList<Object>();
+        final Converter converter = (field.getConverters() == null) ? null : field.getConverters().getConverterForOperation(ctx.getOperation().getId());
         int i = 0;
         for (Object value : parameterValues) {
             try {
-                final Converter converter = field.getConverters().getConverterForOperation(ctx.getOperation().getId());
                 Object converted = getConvertedValue(ctx, field, value, null, converter);
                 values.add(converted);
             } catch (IgnoreConvertionException e) {
@@ -0,0 +1,150 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses a set of definition files with a given parser, sequentially or in
+ * parallel on a bounded pool. Results keep the order of the files.
+ *
+ * @author jpaoletti
+ */
+public class DefinitionLoader {
+
+    private final ExecutorService executor;
+    private DefinitionSnapshot snapshot;
+
+    /**
+     * @param threads Pool size. One or less means sequential parsing on the
+     * calling thread.
+     */
+    public DefinitionLoader(int threads) {
+        if (threads > 1) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+                    final Thread t = new Thread(r, "pm-loader-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Parse all the given files.
+     *
+     * @param parser A thread safe parser
+     * @param files The files
+     * @return The results in the same order of the files
+     */
+    public List<ParseResult> parse(final PMParser parser, String[] files) {
+        final List<ParseResult> result = new ArrayList<ParseResult>(files.length);
+        if (executor == null) {
+            for (String file : files) {
+                result.add(parse(parser, file));
+            }
+            return result;
+        }
+        final List<Future<ParseResult>> futures = new ArrayList<Future<ParseResult>>(files.length);
+        for (final String file : files) {
+            futures.add(executor.submit(new Callable<ParseResult>() {
+
+                public ParseResult call() {
+                    return parse(parser, file);
+                }
+            }));
+        }
+        for (int i = 0; i < files.length; i++) {
+            try {
+                result.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.add(new ParseResult(files[i], null, e, 0));
+            } catch (ExecutionException e) {
+                result.add(new ParseResult(files[i], null, e, 0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse a single file, measuring the time
+     * @param parser The parser
+     * @param file The file
+     * @return The result
+     */
+    public ParseResult parse(PMParser parser, String file) {
+        final long start = System.currentTimeMillis();
+        try {
+            String hash = null;
+            if (snapshot != null) {
+                hash = DefinitionSnapshot.hash(file);
+                final Object o = snapshot.get(parser, file, hash);
+                if (o != null) {
+                    return new ParseResult(file, o, null, System.currentTimeMillis() - start, true);
+                }
+            }
+            final Object o = parser.parseFile(file);
+            if (snapshot != null) {
+                snapshot.put(parser, file, hash, o);
+            }
+            return new ParseResult(file, o, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            return new ParseResult(file, null, e, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Getter for the snapshot
+     * @return The snapshot or null if not used
+     */
+    public DefinitionSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Use the given snapshot to restore unchanged files instead of parsing
+     * them. Parsed files are stored in the snapshot.
+     * @param snapshot The snapshot, null to always parse
+     */
+    public void setSnapshot(DefinitionSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Release the pool
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary snapshot of parsed definition files. Each entry is keyed by parser
+ * and file name and holds a content hash of the source file and the
+ * serialized parsed object. An entry is used only while the hash of the file
+ * still matches, so changed files are parsed again and everything else is
+ * restored without going through XStream.
+ *
+ * Objects that can not be serialized are simply not stored.
+ *
+ * @author jpaoletti
+ */
+public class DefinitionSnapshot {
+
+    private static final int VERSION = 1;
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile boolean dirty = false;
+    private int hits;
+    private int misses;
+
+    /**
+     * @param filename Snapshot file name
+     */
+    public DefinitionSnapshot(String filename) {
+        this.file = new File(filename);
+    }
+
+    /**
+     * Read the snapshot file. A missing, outdated or corrupt snapshot is
+     * discarded and the snapshot starts empty.
+     *
+     * @return true if the file was loaded
+     */
+    @SuppressWarnings("unchecked")
+    public boolean load() {
+        entries.clear();
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            final ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != VERSION) {
+                    return false;
+                }
+                entries.putAll((Map<String, Entry>) in.readObject());
+                return true;
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            entries.clear();
+            dirty = true;
+            return false;
+        }
+    }
+
+    /**
+     * Write the snapshot file if something changed since it was loaded. The
+     * file is written to a temporary file first and then renamed.
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        final File tmp = new File(file.getPath() + ".tmp");
+        final ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(VERSION);
+            out.writeObject(new HashMap<String, Entry>(entries));
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Unable to write snapshot " + file);
+            }
+        }
+        dirty = false;
+    }
+
+    /**
+     * Return a fresh copy of the object parsed from the given file, if the
+     * snapshot holds it and the file did not change.
+     *
+     * @param parser The parser of the file
+     * @param filename The file
+     * @param hash Current content hash of the file
+     * @return The object or null
+     */
+    public Object get(PMParser parser, String filename, String hash) {
+        final Entry entry = entries.get(key(parser, filename));
+        if (entry != null && entry.hash.equals(hash)) {
+            try {
+                final Object o = deserialize(entry.data);
+                count(true);
+                return o;
+            } catch (Exception e) {
+                entries.remove(key(parser, filename));
+                dirty = true;
+            }
+        }
+        count(false);
+        return null;
+    }
+
+    /**
+     * Store the object parsed from the given file.
+     *
+     * @param parser The parser of the file
+     * @param filename The file
+     * @param hash Content hash of the file
+     * @param object The parsed object
+     * @return true if the object was stored
+     */
+    public boolean put(PMParser parser, String filename, String hash, Object object) {
+        if (!(object instanceof Serializable)) {
+            return false;
+        }
+        try {
+            entries.put(key(parser, filename), new Entry(hash, serialize(object)));
+            dirty = true;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remove all the entries
+     */
+    public void clear() {
+        entries.clear();
+        dirty = true;
+    }
+
+    private synchronized void count(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    /**
+     * @return Number of objects restored from the snapshot
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of lookups not found or outdated
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private static String key(PMParser parser, String filename) {
+        return parser.getClass().getName() + ":" + filename;
+    }
+
+    /**
+     * Deep copy of a parsed definition, without its transient state
+     *
+     * @param o The definition
+     * @return The copy
+     * @throws IOException if the object can not be serialized
+     * @throws ClassNotFoundException if a class of the copy can not be loaded
+     */
+    public static Object copy(Object o) throws IOException, ClassNotFoundException {
+        return deserialize(serialize(o));
+    }
+
+    private static byte[] serialize(Object o) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) {
+
+            @Override
+            protected Class<?> resolveClass(java.io.ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                try {
+                    return Class.forName(desc.getName(), false, Thread.currentThread().getContextClassLoader());
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(desc);
+                }
+            }
+        };
+        try {
+            return in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Content hash of the given file
+     *
+     * @param filename The file
+     * @return Hex encoded SHA-1 of the file content
+     */
+    public static String hash(String filename) throws IOException {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IOException(e.getMessage());
+        }
+        final InputStream in = new FileInputStream(filename);
+        try {
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static class Entry implements Serializable {
+
+        private final String hash;
+        private final byte[] data;
+
+        Entry(String hash, byte[] data) {
+            this.hash = hash;
+            this.data = data;
+        }
+    }
+}
@@ -33,9 +33,21 @@ public class EntityParser extends ParserSupport {
         getXstream().alias("entity", Entity.class);
 
         getXstream().aliasAttribute("no-count", "noCount");
+        getXstream().aliasAttribute("keyset-pagination", "keysetPagination");
+        getXstream().aliasAttribute("count-ttl", "countTtl");
+        getXstream().aliasAttribute("deferred-count", "deferredCount");
+        getXstream().aliasAttribute("page-cache", "pageCache");
+        getXstream().aliasAttribute("version-property", "versionProperty");
+        getXstream().aliasAttribute("id-cache-size", "idCacheSize");
 
         getXstream().useAttributeFor(Entity.class, "id");
         getXstream().useAttributeFor(Entity.class, "noCount");
+        getXstream().useAttributeFor(Entity.class, "keysetPagination");
+        getXstream().useAttributeFor(Entity.class, "countTtl");
+        getXstream().useAttributeFor(Entity.class, "deferredCount");
+        getXstream().useAttributeFor(Entity.class, "pageCache");
+        getXstream().useAttributeFor(Entity.class, "versionProperty");
+        getXstream().useAttributeFor(Entity.class, "idCacheSize");
         getXstream().useAttributeFor(Entity.class, "clazz");
         getXstream().useAttributeFor(Entity.class, "extendz");
 
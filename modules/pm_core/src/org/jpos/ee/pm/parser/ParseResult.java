@@ -0,0 +1,77 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.parser;
+
+/**
+ * The outcome of parsing one definition file: the parsed object or the
+ * error, and the time it took.
+ *
+ * @author jpaoletti
+ * @see DefinitionLoader
+ */
+public class ParseResult {
+
+    private final String filename;
+    private final Object object;
+    private final Exception error;
+    private final long elapsed;
+    private final boolean cached;
+
+    public ParseResult(String filename, Object object, Exception error, long elapsed) {
+        this(filename, object, error, elapsed, false);
+    }
+
+    public ParseResult(String filename, Object object, Exception error, long elapsed, boolean cached) {
+        this.filename = filename;
+        this.object = object;
+        this.error = error;
+        this.elapsed = elapsed;
+        this.cached = cached;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public Object getObject() {
+        return object;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isOk() {
+        return error == null;
+    }
+
+    /**
+     * @return true if the object was restored from a snapshot instead of
+     * being parsed
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * @return Parse time in milliseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+}
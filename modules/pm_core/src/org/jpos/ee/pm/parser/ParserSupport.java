@@ -22,24 +22,47 @@ import com.thoughtworks.xstream.io.xml.JDomDriver;
 import java.io.FileReader;
 
 /**
+ * Base class for XStream based parsers. The XStream instance is configured
+ * only once, on first use, and then shared; XStream is thread safe once
+ * configured so one parser can be used concurrently.
  *
  * @author jpaoletti
  */
 public abstract class ParserSupport implements PMParser{
     private XStream xstream;
+    private volatile boolean configured = false;
 
     protected void init(){
         xstream = new XStream(new JDomDriver());
     }
+
+    /**
+     * Return the configured xstream, configuring it if needed
+     */
+    protected XStream getConfiguredXstream() {
+        if (!configured) {
+            synchronized (this) {
+                if (!configured) {
+                    init();
+                    configured = true;
+                }
+            }
+        }
+        return xstream;
+    }
+
     public Object parseFile(String filename) throws Exception {
-        init();
-        return xstream.fromXML(new FileReader(filename), newObject());
+        final FileReader reader = new FileReader(filename);
+        try {
+            return getConfiguredXstream().fromXML(reader, newObject());
+        } finally {
+            reader.close();
+        }
     }
 
     public void saveToFile(Object object, String filename) throws Exception{
-        init();
         //todo finish
-        xstream.toXML(object);
+        getConfiguredXstream().toXML(object);
     }
 
     public XStream getXstream() {
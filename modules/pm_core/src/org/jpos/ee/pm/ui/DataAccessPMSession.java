@@ -26,7 +26,7 @@ import org.jpos.ee.pm.core.*;
  *
  * @author jpaoletti
  */
-public class DataAccessPMSession implements DataAccess{
+public class DataAccessPMSession extends DataAccessSupport{
 
     public Object getItem(PMContext ctx, String property, String value) throws PMException {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -0,0 +1,109 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.util;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A page of rows of a longer list. Rows are addressed by their absolute
+ * position in the whole list, which is also their key in links and
+ * selections: the first row of the page is row {@link #getOffset()}.
+ * <br/>
+ * As a {@link List} it behaves as a plain list of the page rows, indexed from
+ * zero. The given rows are not copied when they can be accessed by index.
+ *
+ * @param <T> Row type
+ * @author jpaoletti
+ */
+public class RowPage<T> extends AbstractList<T> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final List<T> rows;
+    private final int offset;
+
+    /**
+     * Empty page
+     */
+    public RowPage() {
+        this(null, 0);
+    }
+
+    /**
+     * @param rows The page rows, null for none
+     * @param offset Absolute position of the first row
+     */
+    public RowPage(List<T> rows, int offset) {
+        if (rows == null) {
+            this.rows = Collections.emptyList();
+        } else if (rows instanceof RandomAccess) {
+            this.rows = rows;
+        } else {
+            this.rows = new ArrayList<T>(rows);
+        }
+        this.offset = offset;
+    }
+
+    @Override
+    public T get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Return the row at the given absolute position, or null if it is not
+     * in this page
+     *
+     * @param row The absolute position
+     * @return The row or null
+     */
+    public T getRow(int row) {
+        return hasRow(row) ? rows.get(row - offset) : null;
+    }
+
+    /**
+     * @param row An absolute position
+     * @return true if the row is in this page
+     */
+    public boolean hasRow(int row) {
+        return row >= offset && row < offset + rows.size();
+    }
+
+    /**
+     * @param index A page index
+     * @return The absolute position of the page row
+     */
+    public int rowOf(int index) {
+        return offset + index;
+    }
+
+    /**
+     * @return Absolute position of the first row
+     */
+    public int getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class FieldComparatorTest extends TestCase {
+
+    private static Field field(String id) {
+        final Field f = new Field();
+        f.setId(id);
+        return f;
+    }
+
+    private static String ids(List<Field> fields) {
+        final StringBuilder sb = new StringBuilder();
+        for (Field f : fields) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(f.getId());
+        }
+        return sb.toString();
+    }
+
+    private static List<Field> sort(String order, String... ids) {
+        final List<Field> fields = new ArrayList<Field>();
+        for (String id : ids) {
+            fields.add(field(id));
+        }
+        Collections.sort(fields, new FieldComparator(order));
+        return fields;
+    }
+
+    public void testFollowsOrder() {
+        assertEquals("c a b", ids(sort("c a b", "a", "b", "c")));
+    }
+
+    public void testCommasAndExtraSpaces() {
+        assertEquals("b c a", ids(sort("  b, c ,a ", "a", "b", "c")));
+    }
+
+    public void testMissingFieldsGoLastKeepingTheirOrder() {
+        assertEquals("c a x y", ids(sort("c a", "x", "a", "y", "c")));
+    }
+
+    public void testRepeatedIdKeepsFirstPosition() {
+        assertEquals("b a", ids(sort("b a b", "a", "b")));
+    }
+
+    public void testNullOrderKeepsOriginalOrder() {
+        assertEquals("b a c", ids(sort(null, "b", "a", "c")));
+    }
+
+    public void testUnknownIdsInOrderAreIgnored() {
+        assertEquals("a b", ids(sort("z a y b", "b", "a")));
+    }
+
+    public void testComparison() {
+        final FieldComparator c = new FieldComparator("a b");
+        assertTrue(c.compare(field("a"), field("b")) < 0);
+        assertTrue(c.compare(field("b"), field("a")) > 0);
+        assertEquals(0, c.compare(field("a"), field("a")));
+        assertTrue(c.compare(field("x"), field("a")) > 0);
+        assertEquals(0, c.compare(field("x"), field("y")));
+        assertEquals("a b", c.getOrder());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import junit.framework.TestCase;
+
+public class KeysetTest extends TestCase {
+
+    private static Keyset keyset(String order, boolean desc, Object firstValue, Object firstId, Object lastValue, Object lastId) {
+        final Keyset keyset = new Keyset(order, desc, firstValue, firstId, lastValue, lastId);
+        keyset.setPage(3);
+        keyset.setRowsPerPage(10);
+        return keyset;
+    }
+
+    public void testNextSeeksFromTheLastRow() {
+        final Keyset.Seek seek = keyset("name", false, "a", 1L, "f", 9L).seek(4, "name", false, 10);
+        assertEquals(Keyset.Seek.NEXT, seek.getDirection());
+        assertEquals("f", seek.getValue());
+        assertEquals(9L, seek.getId());
+    }
+
+    public void testPreviousSeeksFromTheFirstRow() {
+        final Keyset.Seek seek = keyset("name", false, "a", 1L, "f", 9L).seek(2, "name", false, 10);
+        assertEquals(Keyset.Seek.PREVIOUS, seek.getDirection());
+        assertEquals("a", seek.getValue());
+        assertEquals(1L, seek.getId());
+    }
+
+    public void testSamePageSeeksFromTheFirstRow() {
+        final Keyset.Seek seek = keyset("name", true, "f", 9L, "a", 1L).seek(3, "name", true, 10);
+        assertEquals(Keyset.Seek.SAME, seek.getDirection());
+        assertEquals("f", seek.getValue());
+        assertEquals(9L, seek.getId());
+    }
+
+    public void testTiesKeepTheIdentifier() {
+        //Every row of the page has the same sort value
+        final Keyset keyset = keyset("status", false, "open", 10L, "open", 19L);
+        final Keyset.Seek next = keyset.seek(4, "status", false, 10);
+        assertEquals("open", next.getValue());
+        assertEquals(19L, next.getId());
+        final Keyset.Seek previous = keyset.seek(2, "status", false, 10);
+        assertEquals("open", previous.getValue());
+        assertEquals(10L, previous.getId());
+    }
+
+    public void testNullOrderSeeksByIdentifier() {
+        final Keyset keyset = keyset(null, false, null, 1L, null, 9L);
+        final Keyset.Seek seek = keyset.seek(4, null, false, 10);
+        assertEquals(Keyset.Seek.NEXT, seek.getDirection());
+        assertNull(seek.getValue());
+        assertEquals(9L, seek.getId());
+        assertNull(keyset.seek(4, "name", false, 10));
+    }
+
+    public void testOrderChangeReadsByOffset() {
+        assertNull(keyset("name", false, "a", 1L, "f", 9L).seek(4, null, false, 10));
+        assertNull(keyset("name", false, "a", 1L, "f", 9L).seek(4, "code", false, 10));
+        assertNull(keyset("name", false, "a", 1L, "f", 9L).seek(4, "name", true, 10));
+    }
+
+    public void testPageSizeChangeReadsByOffset() {
+        assertNull(keyset("name", false, "a", 1L, "f", 9L).seek(4, "name", false, 20));
+    }
+
+    public void testFirstAndFarPagesReadByOffset() {
+        final Keyset keyset = keyset("name", false, "a", 1L, "f", 9L);
+        keyset.setPage(2);
+        assertNull(keyset.seek(1, "name", false, 10));
+        assertNull(keyset.seek(0, "name", false, 10));
+        assertNull(keyset.seek(4, "name", false, 10));
+        assertNotNull(keyset.seek(3, "name", false, 10));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+import org.jpos.core.SimpleConfiguration;
+
+public class LruPageCacheTest extends TestCase {
+
+    private LruPageCache cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        cache = new LruPageCache();
+        final Properties props = new Properties();
+        props.setProperty("page-cache-size", "3");
+        cache.setConfiguration(new SimpleConfiguration(props));
+    }
+
+    private static List<Object> ids(Object... ids) {
+        return new ArrayList<Object>(Arrays.asList(ids));
+    }
+
+    private void put(String entityId, String key, Object... ids) {
+        cache.put(entityId, key, ids(ids), cache.getVersion(entityId));
+    }
+
+    public void testGetReturnsThePage() {
+        put("e", "p1", 1L, 2L, 3L);
+        assertEquals(ids(1L, 2L, 3L), cache.get("e", "p1"));
+        assertNull(cache.get("e", "p2"));
+        assertNull(cache.get("other", "p1"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    public void testPageIsACopy() {
+        final List<Object> ids = ids(1L, 2L);
+        cache.put("e", "p1", ids, cache.getVersion("e"));
+        ids.add(3L);
+        assertEquals(ids(1L, 2L), cache.get("e", "p1"));
+        try {
+            cache.get("e", "p1").add(4L);
+            fail("cached pages must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    public void testNullIdsAreNotKept() {
+        cache.put("e", "p1", null, cache.getVersion("e"));
+        assertNull(cache.get("e", "p1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testNullKeysAndIdentifiers() {
+        put("e", null, null, 2L);
+        assertEquals(ids(null, 2L), cache.get("e", null));
+    }
+
+    public void testEvictsTheLeastRecentlyUsedPage() {
+        put("e", "p1", 1L);
+        put("e", "p2", 2L);
+        put("e", "p3", 3L);
+        //p1 becomes the most recently used
+        assertNotNull(cache.get("e", "p1"));
+        put("e", "p4", 4L);
+        assertEquals(3, cache.getSize());
+        assertNull(cache.get("e", "p2"));
+        assertNotNull(cache.get("e", "p1"));
+        assertNotNull(cache.get("e", "p3"));
+        assertNotNull(cache.get("e", "p4"));
+    }
+
+    public void testZeroSizeKeepsNothing() {
+        final Properties props = new Properties();
+        props.setProperty("page-cache-size", "0");
+        cache.setConfiguration(new SimpleConfiguration(props));
+        put("e", "p1", 1L);
+        assertNull(cache.get("e", "p1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testInvalidateDropsOnlyThatEntity() {
+        put("e", "p1", 1L);
+        put("f", "p1", 2L);
+        cache.invalidate("e");
+        assertNull(cache.get("e", "p1"));
+        assertEquals(ids(2L), cache.get("f", "p1"));
+        assertEquals(1, cache.getSize());
+    }
+
+    public void testPageListedBeforeAWriteIsNotKept() {
+        final long version = cache.getVersion("e");
+        cache.invalidate("e");
+        cache.put("e", "p1", ids(1L), version);
+        assertNull(cache.get("e", "p1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testClearDropsEveryPage() {
+        put("e", "p1", 1L);
+        put("f", "p1", 2L);
+        final long version = cache.getVersion("e");
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertTrue(cache.getVersion("e") != version);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.core.operations;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class RowReaderTest extends TestCase {
+
+    private static ImportOperation.RowReader csv(String s) throws IOException {
+        return new ImportOperation.RowReader(new StringReader(s), ',');
+    }
+
+    private static ImportOperation.RowReader tsv(String s) throws IOException {
+        return new ImportOperation.RowReader(new StringReader(s), '\t');
+    }
+
+    private static void assertRow(String[] row, String... expected) {
+        assertEquals(Arrays.asList(expected), Arrays.asList(row));
+    }
+
+    public void testSeparatedCells() throws IOException {
+        final ImportOperation.RowReader rows = csv("a,b,c\n1,2,3\n");
+        assertRow(rows.next(), "a", "b", "c");
+        assertRow(rows.next(), "1", "2", "3");
+        assertNull(rows.next());
+    }
+
+    public void testLastRowWithoutLineBreak() throws IOException {
+        final ImportOperation.RowReader rows = csv("a,b\n1,2");
+        assertRow(rows.next(), "a", "b");
+        assertRow(rows.next(), "1", "2");
+        assertNull(rows.next());
+    }
+
+    public void testCrLf() throws IOException {
+        final ImportOperation.RowReader rows = csv("a,b\r\n1,2\r\n3,4\r5,6");
+        assertRow(rows.next(), "a", "b");
+        assertRow(rows.next(), "1", "2");
+        assertRow(rows.next(), "3", "4");
+        assertRow(rows.next(), "5", "6");
+        assertNull(rows.next());
+    }
+
+    public void testByteOrderMark() throws IOException {
+        final ImportOperation.RowReader rows = csv("\uFEFFa,b\n");
+        assertRow(rows.next(), "a", "b");
+        assertNull(rows.next());
+    }
+
+    public void testQuotedSeparatorAndQuotes() throws IOException {
+        final ImportOperation.RowReader rows = csv("\"a,b\",\"say \"\"hi\"\"\",c\n");
+        assertRow(rows.next(), "a,b", "say \"hi\"", "c");
+        assertNull(rows.next());
+    }
+
+    public void testQuotedLineBreak() throws IOException {
+        final ImportOperation.RowReader rows = csv("\"one\ntwo\",x\nnext,y\n");
+        assertRow(rows.next(), "one\ntwo", "x");
+        assertEquals(1, rows.getLine());
+        assertRow(rows.next(), "next", "y");
+        assertEquals(3, rows.getLine());
+    }
+
+    public void testQuoteInsideCellIsLiteral() throws IOException {
+        assertRow(csv("a\"b,c\n").next(), "a\"b", "c");
+    }
+
+    public void testUnterminatedQuote() throws IOException {
+        final ImportOperation.RowReader rows = csv("\"abc,d");
+        assertRow(rows.next(), "abc,d");
+        assertNull(rows.next());
+    }
+
+    public void testTabSeparator() throws IOException {
+        final ImportOperation.RowReader rows = tsv("a\tb,c\t\"d\"\n");
+        assertRow(rows.next(), "a", "b,c", "\"d\"");
+        assertNull(rows.next());
+    }
+
+    public void testShortRows() throws IOException {
+        final ImportOperation.RowReader rows = csv("a,b,c\n1\n2,\n\n");
+        assertRow(rows.next(), "a", "b", "c");
+        assertRow(rows.next(), "1");
+        assertRow(rows.next(), "2", "");
+        assertRow(rows.next(), "");
+        assertNull(rows.next());
+    }
+
+    public void testLineNumbers() throws IOException {
+        final ImportOperation.RowReader rows = csv("a\r\nb\n\nc");
+        rows.next();
+        assertEquals(1, rows.getLine());
+        rows.next();
+        assertEquals(2, rows.getLine());
+        rows.next();
+        assertEquals(3, rows.getLine());
+        rows.next();
+        assertEquals(4, rows.getLine());
+    }
+}
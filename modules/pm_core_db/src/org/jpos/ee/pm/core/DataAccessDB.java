@@ -17,28 +17,187 @@
  */
 package org.jpos.ee.pm.core;
 
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
 import org.jpos.ee.Constants;
 import org.jpos.ee.DB;
 
-public class DataAccessDB implements DataAccess, Constants {
+public class DataAccessDB extends DataAccessSupport implements Constants {
 
+    /**
+     * The value is converted to the mapped type of the property and bound as
+     * a parameter. Identifier lookups use session.get, and other properties
+     * are resolved to an identifier through the entity id cache when it is
+     * defined. Names that are not mapped properties are taken as columns, as
+     * before.
+     */
     public Object getItem(PMContext ctx, String property, String value) throws PMException {
+        final Entity entity = getEntity(ctx);
+        final Session session = getDb(ctx).session();
+        final Class<?> clazz;
         try {
-            DB db = getDb(ctx);
-            Criteria c = db.session().createCriteria(Class.forName(getEntity(ctx).getClazz()));
-            c.setMaxResults(1);
-            c.add(Restrictions.sqlRestriction(property + "=" + value));
-            return c.uniqueResult();
+            clazz = entity.getEntityClass();
         } catch (ClassNotFoundException e) {
             return null;
         }
+        final ClassMetadata metadata = session.getSessionFactory().getClassMetadata(clazz);
+        if (metadata == null || value == null) {
+            return null;
+        }
+        final boolean isId = property.equals(metadata.getIdentifierPropertyName());
+        final Class<?> type;
+        if (isId) {
+            type = metadata.getIdentifierType().getReturnedClass();
+        } else if (isPropertyOf(metadata, property)) {
+            type = metadata.getPropertyType(property).getReturnedClass();
+        } else {
+            type = null;
+        }
+        if (type == null || !isSupported(type)) {
+            return getItemByColumn(session, metadata, clazz, property, value);
+        }
+        final Object typed = toType(value, type);
+        if (typed == null) {
+            return null;
+        }
+        if (isId) {
+            return session.get(clazz, (Serializable) typed);
+        }
+        final IdentifierCache ids = entity.getIdCache();
+        final Object id = (ids == null) ? null : ids.get(property, value);
+        if (id instanceof Serializable) {
+            final Object item = session.get(clazz, (Serializable) id);
+            if (item != null && typed.equals(ctx.getPresentationManager().get(item, property))) {
+                return item;
+            }
+            ids.remove(property, value);
+        }
+        final Criteria c = session.createCriteria(clazz);
+        c.setMaxResults(1);
+        c.add(Restrictions.eq(property, typed));
+        final Object item = c.uniqueResult();
+        if (ids != null && item != null) {
+            ids.put(property, value, ctx.getPresentationManager().get(item, metadata.getIdentifierPropertyName()));
+        }
+        return item;
+    }
+
+    /**
+     * Lookup by a column name, for names that are not mapped properties or
+     * properties of types that can not be converted. The value is bound with
+     * the mapped type of the column, so only columns of a single column
+     * property or identifier of a supported type can be used.
+     */
+    private Object getItemByColumn(Session session, ClassMetadata metadata, Class<?> clazz, String column, String value) {
+        if (!column.matches("\\w+")) {
+            return null;
+        }
+        final Type type = getColumnType(metadata, column);
+        if (type == null || !isSupported(type.getReturnedClass())) {
+            return null;
+        }
+        final Object typed = toType(value, type.getReturnedClass());
+        if (typed == null) {
+            return null;
+        }
+        final Criteria c = session.createCriteria(clazz);
+        c.setMaxResults(1);
+        c.add(Restrictions.sqlRestriction(column + " = ?", typed, type));
+        return c.uniqueResult();
+    }
+
+    /**
+     * Mapped type of the property or identifier stored in the given column,
+     * null if no single column property uses it
+     */
+    private Type getColumnType(ClassMetadata metadata, String column) {
+        if (!(metadata instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        final AbstractEntityPersister persister = (AbstractEntityPersister) metadata;
+        if (isColumn(persister.getIdentifierColumnNames(), column)) {
+            return metadata.getIdentifierType();
+        }
+        for (String name : metadata.getPropertyNames()) {
+            if (isColumn(persister.getPropertyColumnNames(name), column)) {
+                return metadata.getPropertyType(name);
+            }
+        }
+        return null;
+    }
+
+    private boolean isColumn(String[] columns, String column) {
+        return columns != null && columns.length == 1 && columns[0].equalsIgnoreCase(column);
+    }
+
+    private boolean isPropertyOf(ClassMetadata metadata, String property) {
+        for (String name : metadata.getPropertyNames()) {
+            if (name.equals(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSupported(Class<?> type) {
+        return type == String.class || Number.class.isAssignableFrom(type) || type == Boolean.class || type == Character.class
+                || (type.isPrimitive() && type != void.class);
+    }
+
+    /**
+     * Converts a request value to the given property type, null if it is not
+     * a valid value of that type
+     */
+    protected Object toType(String value, Class<?> type) {
+        try {
+            if (type == String.class) {
+                return value;
+            } else if (type == Long.class || type == long.class) {
+                return Long.valueOf(value.trim());
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(value.trim());
+            } else if (type == Short.class || type == short.class) {
+                return Short.valueOf(value.trim());
+            } else if (type == Byte.class || type == byte.class) {
+                return Byte.valueOf(value.trim());
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(value.trim());
+            } else if (type == BigInteger.class) {
+                return new BigInteger(value.trim());
+            } else if (type == Double.class || type == double.class) {
+                return Double.valueOf(value.trim());
+            } else if (type == Float.class || type == float.class) {
+                return Float.valueOf(value.trim());
+            } else if (type == Boolean.class || type == boolean.class) {
+                return Boolean.valueOf(value.trim());
+            } else if ((type == Character.class || type == char.class) && value.length() == 1) {
+                return value.charAt(0);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return null;
     }
 
     protected DB getDb(PMContext ctx) {
@@ -54,8 +213,30 @@ public class DataAccessDB implements DataAccess, Constants {
     }
 
     public List<?> list(PMContext ctx, EntityFilter filter, Integer from, Integer count) throws PMException {
-        //We use the filter only if the entity we use is the container one.
-        Criteria list = createCriteria(ctx, getEntity(ctx), filter);
+        final Entity entity = getEntity(ctx);
+        final String order = getOrderProperty(ctx, entity);
+        final String idProperty = entity.getKeysetPagination() ? getKeysetIdProperty(ctx, entity, order) : null;
+        if (idProperty == null) {
+            //We use the filter only if the entity we use is the container one.
+            return list(ctx, createCriteria(ctx, entity, filter), from, count);
+        }
+        final Keyset.Seek seek = (Keyset.Seek) ctx.get(Keyset.PM_LIST_SEEK);
+        final boolean backwards = seek != null && seek.getDirection() == Keyset.Seek.PREVIOUS;
+        final Criteria c = createCriteria(ctx, entity, filter, backwards);
+        //The identifier breaks ties so every row has a unique position
+        c.addOrder(isAsc(ctx) != backwards ? Order.asc(idProperty) : Order.desc(idProperty));
+        if (seek != null) {
+            c.add(seekRestriction(order, idProperty, seek, isAsc(ctx)));
+        }
+        final List<Object> result = (List<Object>) list(ctx, c, (seek == null) ? from : null, count);
+        if (backwards) {
+            Collections.reverse(result);
+        }
+        ctx.put(Keyset.PM_LIST_KEYSET, createKeyset(ctx, entity, result, idProperty));
+        return result;
+    }
+
+    private List<?> list(PMContext ctx, Criteria list, Integer from, Integer count) {
         if (count != null) {
             list.setMaxResults(count);
         }
@@ -65,6 +246,155 @@ public class DataAccessDB implements DataAccess, Constants {
         return list.list();
     }
 
+    /**
+     * Rows after (or before, for a previous page) the seek row in the list
+     * order: sort value beyond the seek one, or the same value and identifier
+     * beyond the seek one.
+     */
+    protected Criterion seekRestriction(String order, String idProperty, Keyset.Seek seek, boolean asc) {
+        final boolean greater = (seek.getDirection() == Keyset.Seek.PREVIOUS) ? !asc : asc;
+        final Criterion byId;
+        if (seek.getDirection() == Keyset.Seek.SAME) {
+            byId = greater ? Restrictions.ge(idProperty, seek.getId()) : Restrictions.le(idProperty, seek.getId());
+        } else {
+            byId = greater ? Restrictions.gt(idProperty, seek.getId()) : Restrictions.lt(idProperty, seek.getId());
+        }
+        if (order == null || order.equals(idProperty)) {
+            return byId;
+        }
+        final Criterion byValue = greater ? Restrictions.gt(order, seek.getValue()) : Restrictions.lt(order, seek.getValue());
+        return Restrictions.or(byValue, Restrictions.and(Restrictions.eq(order, seek.getValue()), byId));
+    }
+
+    /**
+     * Identifier that breaks ties in keyset pagination, or null when the list
+     * is paged by offset. Keyset needs a mapped identifier and can not seek
+     * on an association order nor on a nullable property, since rows with a
+     * null sort value never match the seek restriction.
+     */
+    private String getKeysetIdProperty(PMContext ctx, Entity entity, String order) {
+        if (order != null && order.contains(".")) {
+            return null;
+        }
+        final ClassMetadata metadata;
+        try {
+            metadata = getDb(ctx).session().getSessionFactory().getClassMetadata(entity.getEntityClass());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (metadata == null) {
+            return null;
+        }
+        final String idProperty = metadata.getIdentifierPropertyName();
+        if (idProperty == null || order == null || order.equals(idProperty)) {
+            return idProperty;
+        }
+        final String[] names = metadata.getPropertyNames();
+        final boolean[] nullability = metadata.getPropertyNullability();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(order)) {
+                return nullability[i] ? null : idProperty;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keys of the first and last rows, or null if some sort value is null
+     * and can not be compared
+     */
+    private Keyset createKeyset(PMContext ctx, Entity entity, List<?> rows, String idProperty) throws PMException {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        final String order = getOrderProperty(ctx, entity);
+        final Object first = rows.get(0);
+        final Object last = rows.get(rows.size() - 1);
+        final PresentationManager pm = ctx.getPresentationManager();
+        final Object firstValue = (order == null) ? null : pm.get(first, order);
+        final Object lastValue = (order == null) ? null : pm.get(last, order);
+        if (order != null && (firstValue == null || lastValue == null)) {
+            return null;
+        }
+        return new Keyset(ctx.getString(PM_LIST_ORDER), !isAsc(ctx), firstValue, pm.get(first, idProperty), lastValue, pm.get(last, idProperty));
+    }
+
+    public Object getId(PMContext ctx, Object item) throws PMException {
+        final String idProperty = getIdProperty(ctx, getEntity(ctx));
+        return (idProperty == null || item == null) ? null : ctx.getPresentationManager().get(item, idProperty);
+    }
+
+    public List<?> getItems(PMContext ctx, List<Object> ids) throws PMException {
+        final Entity entity = getEntity(ctx);
+        final String idProperty = getIdProperty(ctx, entity);
+        if (idProperty == null) {
+            return null;
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<Object>();
+        }
+        final Criteria c;
+        try {
+            c = getDb(ctx).session().createCriteria(entity.getEntityClass());
+        } catch (ClassNotFoundException e) {
+            ctx.getErrors().add(new PMMessage(ENTITY, "class.not.found"));
+            throw new PMException();
+        }
+        c.add(Restrictions.in(idProperty, ids));
+        final Map<Object, Object> byId = new HashMap<Object, Object>();
+        for (Object item : c.list()) {
+            byId.put(ctx.getPresentationManager().get(item, idProperty), item);
+        }
+        final List<Object> result = new ArrayList<Object>(ids.size());
+        for (Object id : ids) {
+            final Object item = byId.get(id);
+            if (item == null) {
+                return null;
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * Identifier property of the entity class, from the hibernate mapping
+     */
+    protected String getIdProperty(PMContext ctx, Entity entity) {
+        try {
+            final ClassMetadata metadata = getDb(ctx).session().getSessionFactory().getClassMetadata(entity.getEntityClass());
+            return (metadata == null) ? null : metadata.getIdentifierPropertyName();
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Scrolls forward only through the filtered items, clearing the session
+     * after each batch so loaded items can be collected.
+     */
+    public long iterate(PMContext ctx, EntityFilter filter, int batchSize, RowHandler handler) throws PMException {
+        final DB db = getDb(ctx);
+        final Criteria c = createCriteria(ctx, getEntity(ctx), filter);
+        c.setFetchSize(batchSize);
+        c.setCacheMode(CacheMode.IGNORE);
+        final ScrollableResults rows = c.scroll(ScrollMode.FORWARD_ONLY);
+        long n = 0;
+        try {
+            while (rows.next()) {
+                if (!handler.handle(ctx, rows.get(0))) {
+                    break;
+                }
+                n++;
+                if (n % batchSize == 0) {
+                    db.session().clear();
+                }
+            }
+        } finally {
+            rows.close();
+        }
+        return n;
+    }
+
     public void delete(PMContext ctx, Object object) throws PMException {
         DB db = getDb(ctx);
         db.session().delete(object);
@@ -84,6 +414,127 @@ public class DataAccessDB implements DataAccess, Constants {
         }
     }
 
+    /**
+     * Flushes and clears the session after each batch so the inserts go to
+     * the database together and saved objects can be collected.
+     */
+    public void addAll(PMContext ctx, List<?> items, int batchSize) throws PMException {
+        final Session session = getDb(ctx).session();
+        int n = 0;
+        try {
+            for (Object item : items) {
+                session.save(item);
+                if (++n % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.flush();
+            session.clear();
+        } catch (org.hibernate.exception.ConstraintViolationException e) {
+            throw new PMException("constraint.violation.exception");
+        }
+    }
+
+    /**
+     * Items are written by identifier, a batch at a time, flushing and
+     * clearing the session after each one. With hibernate.jdbc.batch_size set
+     * the statements of a batch go to the database together, and memory use
+     * does not grow with the number of items.
+     */
+    public long deleteAll(PMContext ctx, List<?> items, int batchSize) throws PMException {
+        final List<Object> ids = getIds(ctx, items);
+        return (ids == null) ? super.deleteAll(ctx, items, batchSize) : write(ctx, ids, batchSize, null);
+    }
+
+    public long deleteAll(PMContext ctx, EntityFilter filter, int batchSize) throws PMException {
+        final List<Object> ids = listIds(ctx, filter);
+        return (ids == null) ? super.deleteAll(ctx, filter, batchSize) : write(ctx, ids, batchSize, null);
+    }
+
+    public long deleteAllById(PMContext ctx, List<Object> ids, int batchSize) throws PMException {
+        if (getIdProperty(ctx, getEntity(ctx)) == null) {
+            return super.deleteAllById(ctx, ids, batchSize);
+        }
+        return write(ctx, ids, batchSize, null);
+    }
+
+    public long updateAll(PMContext ctx, List<?> items, int batchSize, RowHandler handler) throws PMException {
+        final List<Object> ids = getIds(ctx, items);
+        return (ids == null) ? super.updateAll(ctx, items, batchSize, handler) : write(ctx, ids, batchSize, handler);
+    }
+
+    public long updateAll(PMContext ctx, EntityFilter filter, int batchSize, RowHandler handler) throws PMException {
+        final List<Object> ids = listIds(ctx, filter);
+        return (ids == null) ? super.updateAll(ctx, filter, batchSize, handler) : write(ctx, ids, batchSize, handler);
+    }
+
+    public long updateAllById(PMContext ctx, List<Object> ids, int batchSize, RowHandler handler) throws PMException {
+        if (getIdProperty(ctx, getEntity(ctx)) == null) {
+            return super.updateAllById(ctx, ids, batchSize, handler);
+        }
+        return write(ctx, ids, batchSize, handler);
+    }
+
+    private List<Object> getIds(PMContext ctx, List<?> items) throws PMException {
+        final List<Object> ids = new ArrayList<Object>(items.size());
+        for (Object item : items) {
+            final Object id = getId(ctx, item);
+            if (id == null) {
+                return null;
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<Object> listIds(PMContext ctx, EntityFilter filter) throws PMException {
+        final Entity entity = getEntity(ctx);
+        if (getIdProperty(ctx, entity) == null) {
+            return null;
+        }
+        final Criteria c = createCriteria(ctx, entity, filter);
+        c.setProjection(Projections.id());
+        return c.list();
+    }
+
+    /**
+     * Deletes the items with the given identifiers or, when there is a
+     * handler, lets it modify them and writes the changes
+     */
+    private long write(PMContext ctx, List<Object> ids, int batchSize, RowHandler handler) throws PMException {
+        final Entity entity = getEntity(ctx);
+        final String idProperty = getIdProperty(ctx, entity);
+        final Session session = getDb(ctx).session();
+        final Class<?> clazz;
+        try {
+            clazz = entity.getEntityClass();
+        } catch (ClassNotFoundException e) {
+            ctx.getErrors().add(new PMMessage(ENTITY, "class.not.found"));
+            throw new PMException();
+        }
+        //Pending changes must reach the database before the first clear
+        session.flush();
+        long n = 0;
+        boolean stop = false;
+        for (int from = 0; from < ids.size() && !stop; from += batchSize) {
+            final Criteria c = session.createCriteria(clazz);
+            c.add(Restrictions.in(idProperty, ids.subList(from, Math.min(from + batchSize, ids.size()))));
+            for (Object item : c.list()) {
+                if (handler == null) {
+                    session.delete(item);
+                } else if (!handler.handle(ctx, item)) {
+                    stop = true;
+                    break;
+                }
+                n++;
+            }
+            session.flush();
+            session.clear();
+        }
+        return n;
+    }
+
     public Long count(PMContext ctx) throws PMException {
         EntityFilter filter = ctx.getEntityContainer().getFilter();
         Criteria count = createCriteria(ctx, getEntity(ctx), filter);
@@ -93,21 +544,40 @@ public class DataAccessDB implements DataAccess, Constants {
     }
 
     protected Criteria createCriteria(PMContext ctx, Entity entity, EntityFilter filter) throws PMException {
+        return createCriteria(ctx, entity, filter, false);
+    }
+
+    /**
+     * Sort property of the context list order
+     */
+    private String getOrderProperty(PMContext ctx, Entity entity) {
+        try {
+            return (ctx.getString(PM_LIST_ORDER) != null) ? entity.getFieldById(ctx.getString(PM_LIST_ORDER)).getProperty() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private boolean isAsc(PMContext ctx) {
+        return (ctx.get(PM_LIST_ASC) == null) ? true : (Boolean) ctx.get(PM_LIST_ASC);
+    }
+
+    /**
+     * Creates the criteria of the entity with the context order, reversed if
+     * asked, the entity list filter and the given filter.
+     */
+    protected Criteria createCriteria(PMContext ctx, Entity entity, EntityFilter filter, boolean reverse) throws PMException {
         Criteria c;
         DB db = getDb(ctx);
         try {
-            c = db.session().createCriteria(Class.forName(entity.getClazz()));
+            c = db.session().createCriteria(entity.getEntityClass());
         } catch (ClassNotFoundException e) {
             ctx.getErrors().add(new PMMessage(ENTITY,"class.not.found"));
             throw new PMException();
         }
 
-        String order = null;
-        try {
-            order = (ctx.getString(PM_LIST_ORDER) != null) ? entity.getFieldById(ctx.getString(PM_LIST_ORDER)).getProperty() : null;
-        } catch (Exception e) {
-        }
-        boolean asc = (ctx.get(PM_LIST_ASC) == null) ? true : (Boolean) ctx.get(PM_LIST_ASC);
+        String order = getOrderProperty(ctx, entity);
+        final boolean asc = isAsc(ctx) != reverse;
         //This is a temporary patch until i found how to sort propertys
         if (order != null && order.contains(".")) {
             order = order.substring(0, order.indexOf("."));
@@ -146,6 +616,42 @@ public class DataAccessDB implements DataAccess, Constants {
         return merged;
     }
 
+    /**
+     * Reads only the version property of the row. If it did not change, the
+     * object is reattached to the session instead of merged and reloaded.
+     */
+    public Object refresh(PMContext ctx, Object o, Object version) throws PMException {
+        final Entity entity = getEntity(ctx);
+        final Session session = getDb(ctx).session();
+        if (version == null || entity.getVersionProperty() == null || o == null) {
+            return refresh(ctx, o);
+        }
+        if (session.contains(o)) {
+            return o;
+        }
+        final Object id = getId(ctx, o);
+        if (id == null) {
+            return refresh(ctx, o);
+        }
+        final Object current;
+        try {
+            current = session.createCriteria(entity.getEntityClass()).add(Restrictions.idEq(id)).setProjection(Projections.property(entity.getVersionProperty())).uniqueResult();
+        } catch (ClassNotFoundException e) {
+            ctx.getErrors().add(new PMMessage(ENTITY, "class.not.found"));
+            throw new PMException();
+        }
+        if (!version.equals(current)) {
+            return refresh(ctx, o);
+        }
+        try {
+            session.lock(o, LockMode.NONE);
+            return o;
+        } catch (HibernateException e) {
+            //Other instance of the same row is already in the session
+            return refresh(ctx, o);
+        }
+    }
+
     public EntityFilter createFilter(PMContext ctx) throws PMException {
         return new DBEntityFilter();
     }
@@ -19,7 +19,7 @@ package org.jpos.ee.pm.security.ui;
 
 import java.util.List;
 
-import org.jpos.ee.pm.core.DataAccess;
+import org.jpos.ee.pm.core.DataAccessSupport;
 import org.jpos.ee.pm.core.EntityFilter;
 import org.jpos.ee.pm.core.PMContext;
 import org.jpos.ee.pm.core.PMException;
@@ -28,7 +28,7 @@ import org.jpos.ee.pm.security.core.PMSecurityException;
 import org.jpos.ee.pm.security.core.PMSecurityService;
 import org.jpos.ee.pm.security.core.PMSecurityUserGroup;
 
-public class DataAccessGroup implements DataAccess {
+public class DataAccessGroup extends DataAccessSupport {
 
     public void delete(PMContext ctx, Object object)  throws PMException {
         try {
@@ -19,7 +19,7 @@ package org.jpos.ee.pm.security.ui;
 
 import java.util.List;
 
-import org.jpos.ee.pm.core.DataAccess;
+import org.jpos.ee.pm.core.DataAccessSupport;
 import org.jpos.ee.pm.core.EntityFilter;
 import org.jpos.ee.pm.core.PMContext;
 import org.jpos.ee.pm.core.PMException;
@@ -28,7 +28,7 @@ import org.jpos.ee.pm.security.core.PMSecurityException;
 import org.jpos.ee.pm.security.core.PMSecurityPermission;
 import org.jpos.ee.pm.security.core.PMSecurityService;
 
-public class DataAccessPerm implements DataAccess {
+public class DataAccessPerm extends DataAccessSupport {
 
     public void delete(PMContext ctx, Object object) {}
 
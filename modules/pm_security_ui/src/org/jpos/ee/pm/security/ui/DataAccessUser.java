@@ -18,7 +18,7 @@
 package org.jpos.ee.pm.security.ui;
 
 import java.util.List;
-import org.jpos.ee.pm.core.DataAccess;
+import org.jpos.ee.pm.core.DataAccessSupport;
 import org.jpos.ee.pm.core.EntityFilter;
 import org.jpos.ee.pm.core.PMContext;
 import org.jpos.ee.pm.core.PMException;
@@ -27,7 +27,7 @@ import org.jpos.ee.pm.security.core.PMSecurityException;
 import org.jpos.ee.pm.security.core.PMSecurityService;
 import org.jpos.ee.pm.security.core.PMSecurityUser;
 
-public class DataAccessUser implements DataAccess {
+public class DataAccessUser extends DataAccessSupport {
 
     public void delete(PMContext ctx, Object object)  throws PMException {
         PMSecurityUser instance  = (PMSecurityUser)object;
@@ -0,0 +1,235 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.struts;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.jsp.PageContext;
+
+import org.apache.struts.Globals;
+import org.apache.struts.util.MessageResources;
+import org.apache.struts.util.RequestUtils;
+import org.jpos.ee.pm.converter.Converter;
+import org.jpos.ee.pm.core.Entity;
+import org.jpos.ee.pm.core.EntityContainer;
+import org.jpos.ee.pm.core.Field;
+import org.jpos.ee.pm.core.FieldLayout;
+import org.jpos.ee.pm.core.HighlightRow;
+import org.jpos.ee.pm.core.Operation;
+import org.jpos.ee.pm.core.Operations;
+import org.jpos.ee.pm.core.PMCoreObject;
+import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.PaginatedList;
+import org.jpos.ee.pm.core.PresentationManager;
+import org.jpos.ee.pm.struts.converter.HtmlConverter;
+import org.jpos.util.RowPage;
+
+/**
+ * Writes the rows of a list page straight into the page writer in a single
+ * pass. Converters implementing {@link HtmlConverter} write their cell
+ * directly; any other converter is visualized and its converter jsp is
+ * included, as the converted-item tag does.
+ *
+ * @author jpaoletti
+ */
+public class ListRenderer {
+
+    private static final String CONVERTERS = "../converters/";
+    private static final String VOID = "void.jsp?text=";
+    private final PageContext pageContext;
+    private final PMStrutsContext ctx;
+    private final HttpServletRequest request;
+    private final MessageResources messages;
+    private final Locale locale;
+    private final String contextPath;
+
+    /**
+     * @param pageContext The page being rendered
+     * @param ctx The context
+     */
+    public ListRenderer(PageContext pageContext, PMStrutsContext ctx) {
+        this.pageContext = pageContext;
+        this.ctx = ctx;
+        this.request = (HttpServletRequest) pageContext.getRequest();
+        this.messages = (MessageResources) pageContext.getServletContext().getAttribute(Globals.MESSAGES_KEY);
+        this.locale = RequestUtils.getUserLocale(request, null);
+        this.contextPath = request.getContextPath();
+    }
+
+    /**
+     * Write a table row for each item of the list page
+     *
+     * @param entity The entity
+     * @param operation The list operation
+     * @param pmlist The list
+     * @throws IOException on writer errors
+     * @throws ServletException when a converter jsp fails
+     */
+    public void renderRows(Entity entity, Operation operation, PaginatedList pmlist) throws IOException, ServletException {
+        final RowPage<Object> contents = pmlist.getContents();
+        if (contents == null) {
+            return;
+        }
+        final FieldLayout layout = entity.getLayout(operation.getId());
+        final Converter[] converters = new Converter[layout.size()];
+        for (int j = 0; j < converters.length; j++) {
+            converters[j] = layout.getField(j).getConverter(operation.getId());
+        }
+        final List<Operation> itemOperations = getItemOperations();
+        final EntityContainer container = (EntityContainer) ctx.get(PMCoreObject.PM_ENTITY_CONTAINER);
+        final String rowNumber = "[%0" + pmlist.getListTotalDigits() + "d]";
+        final String template = PresentationManager.getPm().getTemplate();
+        final boolean hasSelected = pmlist.isHasSelectedScope();
+        final BitSet selectedRows = hasSelected ? getSelectedRows(container) : null;
+        for (int index = 0; index < contents.size(); index++) {
+            final Object item = contents.get(index);
+            final int i = contents.rowOf(index);
+            final Object[] values = ctx.getPresentationManager().getAll(item, layout.getFields());
+            final Writer out = pageContext.getOut();
+            final HighlightRow hl = entity.getHighlightRow(operation.getId(), item);
+            out.write("<tr class=\"");
+            out.write(hl.getRowClass());
+            out.write("\">\n<td style=\"color:gray; white-space: nowrap;\">\n");
+            if (hasSelected) {
+                out.write("<input type=\"checkbox\" id=\"selected_item\" value=\"" + i + "\" onchange=\"selectItem(this.value);\" " + (selectedRows.get(index) ? "checked" : "") + " />\n");
+            }
+            if (pmlist.isShowRowNumber()) {
+                out.write(String.format(rowNumber, i));
+            }
+            out.write("&nbsp;\n<span style=\"white-space: nowrap;\" class=\"operationspopup\" id=\"g_" + i + "\">");
+            for (Operation op : itemOperations) {
+                final String url = (op.getUrl() != null) ? op.getUrl() : contextPath + "/" + op.getId() + ".do?pmid=" + entity.getId() + "&item=" + i;
+                out.write("<a class=\"confirmable_" + op.getConfirm() + "\" href=\"" + url + "\" id=\"operation" + op.getId() + "\" title=\"");
+                writeMessage("operation." + op.getId());
+                out.write("\" >");
+                out.write("<img src=\"" + contextPath + "/templates/" + template + "/img/" + op.getId() + ".gif\" alt=\"" + op.getId() + "\" /></a>");
+            }
+            out.write(" &nbsp;\n</span>\n</td>\n");
+            for (int j = 0; j < converters.length; j++) {
+                final Field field = layout.getField(j);
+                out.write("<td class=\" " + hl.getCellClass(j) + "\" align=\"" + field.getAlign() + "\">\n<div class=\"cell\">");
+                renderCell(entity, operation, field, converters[j], item, values[j]);
+                out.write("</div>\n</td>\n");
+            }
+            out.write("</tr>\n");
+        }
+    }
+
+    /**
+     * Write a cell. Errors are logged and shown as an error image, as the
+     * converted-item tag does.
+     */
+    private void renderCell(Entity entity, Operation operation, Field field, Converter converter, Object item, Object value) throws IOException, ServletException {
+        try {
+            ctx.setField(field);
+            ctx.setFieldValue(value);
+            ctx.setEntityInstance(item);
+            ctx.setExtraData("");
+            if (converter instanceof HtmlConverter) {
+                field.prepare(ctx, value);
+                if (((HtmlConverter) converter).render(ctx, this)) {
+                    return;
+                }
+            }
+            final String s = String.valueOf(field.visualize(ctx, operation, entity, value));
+            if (s.startsWith(VOID) && isPlain(s)) {
+                write(s.substring(VOID.length()));
+            } else {
+                pageContext.include(CONVERTERS + s + "&f=" + field.getId(), true);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            PresentationManager.getPm().error(e);
+            write("<img width=\"16px\" src='" + contextPath + "/templates/" + PresentationManager.getPm().getTemplate() + "/images/m_error.png' alt='error' />");
+        }
+    }
+
+    /**
+     * Text that the converter jsp would show unchanged, without query string
+     * separators or encoded characters
+     */
+    private boolean isPlain(String s) {
+        for (int k = VOID.length(); k < s.length(); k++) {
+            final char ch = s.charAt(k);
+            if (ch == '&' || ch == '%' || ch == '+' || ch == '#') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Selected rows of the page. When they can not be read the page is shown
+     * without selected rows.
+     */
+    private BitSet getSelectedRows(EntityContainer container) {
+        if (container != null) {
+            try {
+                return container.getSelectedRows(ctx);
+            } catch (PMException e) {
+                PresentationManager.getPm().error(e);
+            }
+        }
+        return new BitSet();
+    }
+
+    private List<Operation> getItemOperations() {
+        final Operations operations = (Operations) ctx.get(PMStrutsContext.OPERATIONS);
+        if (operations == null || operations.getItemOperations().getOperations() == null) {
+            return Collections.emptyList();
+        }
+        return operations.getItemOperations().getOperations();
+    }
+
+    /**
+     * Write the given html fragment
+     * @param html The fragment
+     * @throws IOException on writer errors
+     */
+    public void write(String html) throws IOException {
+        if (html != null) {
+            pageContext.getOut().write(html);
+        }
+    }
+
+    /**
+     * Write the message of the given key in the user locale or the key
+     * itself if it is not defined
+     * @param key The message key
+     * @throws IOException on writer errors
+     */
+    public void writeMessage(String key) throws IOException {
+        if (key == null) {
+            return;
+        }
+        final String m = (messages == null) ? null : messages.getMessage(locale, key);
+        write((m == null) ? key : m);
+    }
+
+    public PMStrutsContext getContext() {
+        return ctx;
+    }
+}
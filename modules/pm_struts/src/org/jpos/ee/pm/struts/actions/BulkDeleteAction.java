@@ -0,0 +1,41 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.struts.actions;
+
+import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.operations.BulkDeleteOperation;
+import org.jpos.ee.pm.core.operations.BulkOperationSupport;
+import org.jpos.ee.pm.struts.PMStrutsContext;
+
+/**
+ * Action for bulk delete operation, over the selected rows or over the
+ * whole filtered list, as the operation target is configured. The "target"
+ * parameter is only taken when the configuration allows any target.
+ *
+ * @author jpaoletti
+ */
+public class BulkDeleteAction extends ActionSupport {
+
+    protected void doExecute(PMStrutsContext ctx) throws PMException {
+        final Object target = ctx.getParameter(BulkOperationSupport.TARGET);
+        if (target != null) {
+            ctx.put(BulkOperationSupport.TARGET, target.toString());
+        }
+        (new BulkDeleteOperation("bulkdelete")).excecute(ctx);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.struts.actions;
+
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.operations.CountOperation;
+import org.jpos.ee.pm.struts.PMStrutsContext;
+
+/**
+ * Action for the deferred list total. Answers the total of the container
+ * list as plain text so the pagination bar can show it once it is ready.
+ *
+ * @author jpaoletti
+ */
+public class CountAction extends ActionSupport {
+
+    protected void doExecute(PMStrutsContext ctx) throws PMException {
+        (new CountOperation("list")).excecute(ctx);
+        final Object total = ctx.get(CountOperation.PM_LIST_TOTAL);
+        final HttpServletResponse response = ctx.getResponse();
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        try {
+            response.getWriter().write((total == null) ? "?" : total.toString());
+        } catch (IOException e) {
+            throw new PMException(e);
+        }
+    }
+}
@@ -18,7 +18,6 @@
 package org.jpos.ee.pm.struts.actions;
 
 import java.util.Collection;
-import org.jpos.ee.pm.core.EntityInstanceWrapper;
 import org.jpos.ee.pm.core.Operation;
 
 import org.jpos.ee.pm.core.PMContext;
@@ -76,11 +75,15 @@ public abstract class EntityActionSupport extends ActionSupport {
         validate(ctx);
         
         final Operation operation = ctx.getOperation();
+        if(openTransaction() && ctx.hasEntityContainer()) {
+            //The action may change the selected instance, reload it next time
+            ctx.getEntityContainer().setSelectedVersion(null);
+        }
         Object tx = null;
         try{
             if(openTransaction()) {
             	tx = ctx.getPresentationManager().getPersistenceManager().startTransaction(ctx);
-            	ctx.getPresentationManager().debug(this, "Started Transaction "+tx);
+            	ctx.getPresentationManager().debug(this, "Started Transaction ", tx);
             }
         	if(operation!= null && operation.getContext()!= null)
         		operation.getContext().preExecute(ctx);
@@ -96,7 +99,7 @@ public abstract class EntityActionSupport extends ActionSupport {
                 }*/
             try {
                 if(tx != null){
-                    ctx.getPresentationManager().debug(this, "Commiting Transaction "+tx);
+                    ctx.getPresentationManager().debug(this, "Commiting Transaction ", tx);
                     ctx.getPresentationManager().getPersistenceManager().commit(ctx,tx);
                 }
             } catch (Exception e) {
@@ -111,7 +114,7 @@ public abstract class EntityActionSupport extends ActionSupport {
             throw new PMException(e);
         }finally{
             if(tx != null){
-                ctx.getPresentationManager().debug(this,"Rolling Back Transaction "+tx);
+                ctx.getPresentationManager().debug(this, "Rolling Back Transaction ", tx);
                 try {
                     ctx.getPresentationManager().getPersistenceManager().rollback(ctx, tx);
                 } catch (Exception e) {
@@ -180,19 +183,7 @@ public abstract class EntityActionSupport extends ActionSupport {
                 entityContainer = ctx.getEntityContainer(true);
 
         if(entityContainer == null) return null;
-        EntityInstanceWrapper origin = entityContainer.getSelected();
-
-        if(origin != null){
-            if(!entityContainer.isSelectedNew()){
-                Object o = ctx.getEntity().getDataAccess().refresh(ctx, origin.getInstance());
-                entityContainer.setSelected(new EntityInstanceWrapper(o));
-                if(o==null) ctx.getPresentationManager().warn("Fresh instance is null while origin was '"+origin.getInstance()+"'");
-                return o;
-            }else{
-                return origin.getInstance();
-            }
-        }
-        return null;
+        return entityContainer.refreshSelected(ctx);
     }
     
     protected Collection<Object> getOwnerCollection(PMStrutsContext ctx) throws PMException {
@@ -0,0 +1,56 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.struts.actions;
+
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jpos.ee.pm.core.Entity;
+import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.operations.ExportOperation;
+import org.jpos.ee.pm.struts.PMStrutsContext;
+
+/**
+ * Action for export operation. Streams the filtered list straight into the
+ * response as a csv or tsv attachment.
+ *
+ * @author jpaoletti
+ */
+public class ExportAction extends ActionSupport {
+
+    protected void doExecute(PMStrutsContext ctx) throws PMException {
+        final Object f = ctx.getParameter(ExportOperation.PM_EXPORT_FORMAT);
+        ctx.put(ExportOperation.PM_EXPORT_FORMAT, (f == null) ? null : f.toString());
+        ctx.put(ExportOperation.PM_EXPORT_LOCALE, ctx.getRequest().getLocale());
+        final Object pmid = ctx.getParameter(PMStrutsContext.PM_ID);
+        //The format may come from the operation configuration
+        final Entity entity = (pmid == null) ? null : ctx.getPresentationManager().getEntity(pmid.toString());
+        ctx.setOperation((entity == null || entity.getOperations() == null) ? null : entity.getOperations().getOperation("export"));
+        final boolean tsv = ExportOperation.TSV.equals(ExportOperation.getFormat(ctx));
+        final HttpServletResponse response = ctx.getResponse();
+        response.setContentType(tsv ? "text/tab-separated-values;charset=UTF-8" : "text/csv;charset=UTF-8");
+        try {
+            final String name = (pmid == null) ? "export" : pmid.toString().replaceAll("[^\\w.-]", "_");
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + name + (tsv ? ".tsv" : ".csv") + "\"");
+            ctx.put(ExportOperation.PM_EXPORT_WRITER, response.getWriter());
+        } catch (IOException e) {
+            throw new PMException(e);
+        }
+        (new ExportOperation("export")).excecute(ctx);
+    }
+}
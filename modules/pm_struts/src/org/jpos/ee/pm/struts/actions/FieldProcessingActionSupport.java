@@ -29,28 +29,38 @@ import org.jpos.ee.pm.struts.PMStrutsContext;
 import org.jpos.ee.pm.validator.ValidationResult;
 import org.jpos.ee.pm.validator.Validator;
 import org.jpos.util.LogEvent;
-import org.jpos.util.Logger;
 
 public abstract class FieldProcessingActionSupport extends EntityActionSupport {
 
     protected void proccessField(PMStrutsContext ctx, Field field, EntityInstanceWrapper wrapper) throws PMException {
-        LogEvent evt = ctx.getPresentationManager().getLog().createDebug();
-        evt.addMessage("Field [" + field.getId() + "] ");
+        if (ctx.hasEntityContainer() && ctx.getEntityContainer().getSelected() == wrapper) {
+            //The selected instance gets values that are not in the data source
+            //even if the operation fails, so it is reloaded next time
+            ctx.getEntityContainer().setSelectedVersion(null);
+        }
+        final LogEvent evt = ctx.getPresentationManager().createDebug();
+        if (evt != null) {
+            evt.addMessage("Field [" + field.getId() + "] ");
+        }
         final List<String> parameterValues = getParameterValues(ctx,field);
+        final Converter converter = (field.getConverters() == null) ? null : field.getConverters().getConverterForOperation(ctx.getOperation().getId());
         int i  = 0;
         for (String value : parameterValues) {
-            evt.addMessage("    Object to convert: " + value);
+            if (evt != null) {
+                evt.addMessage("    Object to convert: " + value);
+            }
             try {
-                final Converter converter = field.getConverters().getConverterForOperation(ctx.getOperation().getId());
                 Object converted = getConvertedValue(ctx, field, value, wrapper, converter);
-                evt.addMessage("    Object converted: " + converted);
+                if (evt != null) {
+                    evt.addMessage("    Object converted: " + converted);
+                }
                 doProcessField(wrapper, i, converter, ctx, field, converted);
             } catch (IgnoreConvertionException e) {
                 //Do nothing, just ignore conversion.
             }
             i++;
         }
-        Logger.log(evt);
+        ctx.getPresentationManager().debug(evt);
     }
 
     protected void doProcessField(EntityInstanceWrapper wrapper, int i, final Converter converter, PMStrutsContext ctx, Field field, Object converted) throws PMException {
@@ -65,7 +65,7 @@ public class GeneralFilter implements Filter, Constants {
 
         for (Object object : req.getParameterMap().entrySet()) {
             Map.Entry entry = (Map.Entry) object;
-            ctx.put("param_" + entry.getKey(), entry.getValue());
+            ctx.setParameter((String) entry.getKey(), entry.getValue());
         }
         
         final Object pmid = ctx.getParameter("pmid");
@@ -0,0 +1,71 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.struts.actions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import org.apache.struts.upload.FormFile;
+import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.operations.ExportOperation;
+import org.jpos.ee.pm.core.operations.ImportOperation;
+import org.jpos.ee.pm.struts.PMForwardException;
+import org.jpos.ee.pm.struts.PMStrutsContext;
+
+/**
+ * Action for import operation. Shows the upload form and streams the
+ * uploaded file (UTF-8) into the operation. The form shows the rejected
+ * rows report afterwards.
+ *
+ * @author jpaoletti
+ */
+public class ImportAction extends ActionSupport {
+
+    protected void doExecute(PMStrutsContext ctx) throws PMException {
+        final ImportActionForm form = (ImportActionForm) ctx.getForm();
+        final FormFile file = (form == null) ? null : form.getFile();
+        if (file == null || file.getFileSize() == 0) {
+            (new ImportOperation("import")).excecute(ctx);
+            throw new PMForwardException(CONTINUE);
+        }
+        final Object f = ctx.getParameter(ExportOperation.PM_EXPORT_FORMAT);
+        if (f != null) {
+            ctx.put(ExportOperation.PM_EXPORT_FORMAT, f.toString());
+        } else if (file.getFileName() != null && file.getFileName().toLowerCase().endsWith(".tsv")) {
+            ctx.put(ExportOperation.PM_EXPORT_FORMAT, ExportOperation.TSV);
+        }
+        InputStream in = null;
+        try {
+            in = file.getInputStream();
+            ctx.put(ImportOperation.PM_IMPORT_READER, new InputStreamReader(in, "UTF-8"));
+            (new ImportOperation("import")).excecute(ctx);
+        } catch (IOException e) {
+            throw new PMException(e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    ctx.getPresentationManager().error(e);
+                }
+            }
+            file.destroy();
+        }
+    }
+}
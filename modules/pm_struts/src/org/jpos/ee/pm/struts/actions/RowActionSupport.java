@@ -22,7 +22,6 @@ import org.jpos.ee.pm.core.EntityInstanceWrapper;
 import org.jpos.ee.pm.core.PMException;
 import org.jpos.ee.pm.core.PMMessage;
 import org.jpos.ee.pm.struts.PMStrutsContext;
-import org.jpos.util.DisplacedList;
 
 public abstract class RowActionSupport extends FieldProcessingActionSupport {
 
@@ -35,17 +34,15 @@ public abstract class RowActionSupport extends FieldProcessingActionSupport {
         String item = (String) ctx.getParameter("item");
         if (item != null && item.trim().compareTo("") != 0) {
             Integer index = Integer.parseInt(item);
-            ctx.getPresentationManager().debug(this, "Getting row index: " + index);
-            if (index != null) {
-                DisplacedList<Object> al = new DisplacedList<Object>();
-                al.addAll(ctx.getList().getContents());
-                al.setDisplacement(ctx.getList().getContents().getDisplacement());
-                ctx.getEntityContainer().setSelected(new EntityInstanceWrapper(al.get(index)));
+            ctx.getPresentationManager().debug(this, "Getting row index: ", index);
+            final Object row = ctx.getList().getContents().getRow(index);
+            if (row != null) {
+                ctx.getEntityContainer().setSelected(new EntityInstanceWrapper(row));
             }
         } else {
             String identified = (String) ctx.getParameter("identified");
             if (identified != null && identified.trim().compareTo("") != 0) {
-                ctx.getPresentationManager().debug(this, "Getting row identified by: " + identified);
+                ctx.getPresentationManager().debug(this, "Getting row identified by: ", identified);
                 String[] ss = identified.split(":");
                 //TODO Throw exception when the size of this is not 2
                 if (ss.length != 2) {
@@ -1,8 +1,7 @@
 package org.jpos.ee.pm.struts.actions;
 
-import java.util.Set;
-
 import org.jpos.ee.pm.core.PMException;
+import org.jpos.ee.pm.core.PaginatedList;
 import org.jpos.ee.pm.struts.PMStrutsContext;
 
 public class SelectItemAction extends EntityActionSupport {
@@ -24,14 +23,17 @@ public class SelectItemAction extends EntityActionSupport {
 		}
     	ctx.getEntityContainer().setSelectedIndexes(selected);*/
     	super.prepare(ctx);
-    	Integer idx = Integer.parseInt(ctx.getRequest().getParameter("idx"));
-    	Set<Integer> selectedIndexes = ctx.getEntityContainer().getSelectedIndexes();
-    	if(selectedIndexes.contains(idx)) {
-    		selectedIndexes.remove(idx);
-    		ctx.getPresentationManager().debug(this, "Deselected "+idx);
+    	int idx = Integer.parseInt(ctx.getRequest().getParameter("idx"));
+    	//The row is looked up in the page shown and selected by its identifier
+    	final PaginatedList pmlist = ctx.getList();
+    	final Object item = (pmlist == null) ? null : pmlist.getContents().getRow(idx);
+    	if(item == null) {
+    		return true;
+    	}
+    	if(ctx.getEntityContainer().toggleSelected(ctx, item)) {
+    		ctx.getPresentationManager().debug(this, "Selected ", idx);
     	}else{
-    		selectedIndexes.add(idx);
-    		ctx.getPresentationManager().debug(this, "Selected "+idx);
+    		ctx.getPresentationManager().debug(this, "Deselected ", idx);
     	}
         return true;
     }
@@ -17,15 +17,30 @@
  */
 package org.jpos.ee.pm.struts.converter;
 
+import java.io.IOException;
+
 import org.jpos.ee.pm.converter.Converter;
 import org.jpos.ee.pm.converter.ConverterException;
 import org.jpos.ee.pm.core.PMContext;
+import org.jpos.ee.pm.struts.ListRenderer;
 
 /**
  *
  * @author jpaoletti
  */
-public class DefaultStrutsConverter extends Converter {
+public class DefaultStrutsConverter extends Converter implements HtmlConverter {
+
+    public boolean render(PMContext ctx, ListRenderer renderer) throws ConverterException, IOException {
+        final Object s = ctx.getFieldValue();
+        if (s == null) {
+            return true;
+        }
+        if (isUrl(s)) {
+            return false;
+        }
+        renderer.write(s.toString());
+        return true;
+    }
 
     @Override
     public Object visualize(PMContext ctx) throws ConverterException {
@@ -33,10 +48,14 @@ public class DefaultStrutsConverter extends Converter {
         if (s == null) {
             return "void.jsp?text=";
         }
-        if (s instanceof String && s.toString().contains(".jsp?") || s.toString().contains(".do?")) {
+        if (isUrl(s)) {
             return s;
         } else {
             return "void.jsp?text=" + s;
         }
     }
+
+    private boolean isUrl(Object s) {
+        return s instanceof String && s.toString().contains(".jsp?") || s.toString().contains(".do?");
+    }
 }
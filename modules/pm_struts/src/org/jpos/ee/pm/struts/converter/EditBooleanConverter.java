@@ -43,7 +43,7 @@ public class EditBooleanConverter extends StrutsEditConverter {
         EntityInstanceWrapper einstance = (EntityInstanceWrapper) ctx.get(PM_ENTITY_INSTANCE_WRAPPER);
         Field field = (Field) ctx.get(PM_FIELD);
         Boolean p = (Boolean)getValue(einstance, field);
-        boolean withnull = Boolean.parseBoolean( getConfig("with-null", "false") );
+        boolean withnull = getConverterConfig().getBoolean("with-null", false);
         if(!withnull)
             return super.visualize("boolean_converter.jsp?checked="+((p!=null && p.booleanValue())?"checked":""));
         else{
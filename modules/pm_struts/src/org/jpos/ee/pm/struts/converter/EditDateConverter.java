@@ -19,10 +19,10 @@ package org.jpos.ee.pm.struts.converter;
 
 import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.jpos.ee.pm.converter.ConverterException;
+import org.jpos.ee.pm.converter.Formats;
 import org.jpos.ee.pm.core.Field;
 import org.jpos.ee.pm.core.PMContext;
 
@@ -41,6 +41,14 @@ import org.jpos.ee.pm.core.PMContext;
  * */
 public class EditDateConverter extends EditStringConverter {
 
+    private transient volatile String jsFormat;
+
+    @Override
+    public void compile() {
+        super.compile();
+        jsFormat = normalize(javaToJavascriptDateFormat(getFormatString()));
+    }
+
     @Override
     public Object build(PMContext ctx) throws ConverterException {
         try {
@@ -59,19 +67,25 @@ public class EditDateConverter extends EditStringConverter {
         Field field = (Field) ctx.get(PM_FIELD);
         try {
             Date o = (Date) getValue(ctx.getSelected().getInstance(), field);
-            return super.visualize("date_converter.jsp?format=" + normalize(javaToJavascriptDateFormat(getFormatString())) + "&value=" + getDateFormat().format(o));
+            return super.visualize("date_converter.jsp?format=" + getJsFormat() + "&value=" + getDateFormat().format(o));
         } catch (Exception e) {
-            return super.visualize("date_converter.jsp?format=" + normalize(javaToJavascriptDateFormat(getFormatString())) + "&value=");
+            return super.visualize("date_converter.jsp?format=" + getJsFormat() + "&value=");
         }
     }
 
     /**
-     * Return the format object of the date
+     * Return the format object of the date, shared by the current thread
      * @return The format
      */
     public DateFormat getDateFormat() {
-        DateFormat df = new SimpleDateFormat(getFormatString());
-        return df;
+        return Formats.getDateFormat(getFormatString());
+    }
+
+    private String getJsFormat() {
+        if (jsFormat == null) {
+            compile();
+        }
+        return jsFormat;
     }
 
     private String getFormatString() {
@@ -0,0 +1,46 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.jpos.ee.pm.struts.converter;
+
+import java.io.IOException;
+
+import org.jpos.ee.pm.converter.ConverterException;
+import org.jpos.ee.pm.core.PMContext;
+import org.jpos.ee.pm.struts.ListRenderer;
+
+/**
+ * A converter that writes its html straight into a list page, without
+ * including a converter jsp.
+ *
+ * @author jpaoletti
+ * @see ListRenderer
+ */
+public interface HtmlConverter {
+
+    /**
+     * Write the visualization of the context field value.
+     *
+     * @param ctx The context, prepared as for {@link org.jpos.ee.pm.converter.Converter#visualize(PMContext)}
+     * @param renderer The renderer to write to
+     * @return false if the value can not be rendered inline, so the converter
+     * jsp is used instead
+     * @throws ConverterException when the value can not be converted
+     * @throws IOException on writer errors
+     */
+    boolean render(PMContext ctx, ListRenderer renderer) throws ConverterException, IOException;
+}
@@ -17,11 +17,14 @@
  */
 package org.jpos.ee.pm.struts.converter;
 
+import java.io.IOException;
+
 import org.jpos.ee.pm.converter.Converter;
 import org.jpos.ee.pm.converter.ConverterException;
 import org.jpos.ee.pm.core.EntityInstanceWrapper;
 import org.jpos.ee.pm.core.Field;
 import org.jpos.ee.pm.core.PMContext;
+import org.jpos.ee.pm.struts.ListRenderer;
 
 /**Converter for showing a boolean value.<br>
  * <pre>
@@ -36,7 +39,7 @@ import org.jpos.ee.pm.core.PMContext;
  * </pre>
  * @author J.Paoletti jeronimo.paoletti@gmail.com
  * */
-public class ShowBooleanConverter extends Converter {
+public class ShowBooleanConverter extends Converter implements HtmlConverter {
 
     @Override
     public Object build(PMContext ctx) throws ConverterException {
@@ -54,4 +57,15 @@ public class ShowBooleanConverter extends Converter {
         else
         	return super.visualize("localized_string_converter.jsp?value="+getConfig("false-text", "pm.converter.boolean_converter.no"),"");
     }
+
+    public boolean render(PMContext ctx, ListRenderer renderer) throws ConverterException, IOException {
+        EntityInstanceWrapper einstance = (EntityInstanceWrapper) ctx.get(PM_ENTITY_INSTANCE_WRAPPER);
+        Object value = getValue(einstance.getInstance(),(Field) ctx.get(PM_FIELD) );
+        if(! (value instanceof Boolean)) throw new ConverterException("invalid.conversion");
+        if(((Boolean) value).booleanValue())
+            renderer.writeMessage(getConfig("true-text", "pm.converter.boolean_converter.yes"));
+        else
+            renderer.writeMessage(getConfig("false-text", "pm.converter.boolean_converter.no"));
+        return true;
+    }
 }
\ No newline at end of file
@@ -17,6 +17,8 @@
  */
 package org.jpos.ee.pm.struts.converter;
 
+import java.io.IOException;
+
 import org.jpos.ee.pm.converter.ConverterException;
 import org.jpos.ee.pm.converter.IgnoreConvertionException;
 import org.jpos.ee.pm.converter.ShowStringConverter;
@@ -25,8 +27,16 @@ import org.jpos.ee.pm.core.EntityInstanceWrapper;
 import org.jpos.ee.pm.core.Field;
 import org.jpos.ee.pm.core.Operation;
 import org.jpos.ee.pm.core.PMContext;
+import org.jpos.ee.pm.struts.ListRenderer;
+
+public class ShowLocalizedStringConverter extends ShowStringConverter implements HtmlConverter{
 
-public class ShowLocalizedStringConverter extends ShowStringConverter{
+    public boolean render(PMContext ctx, ListRenderer renderer) throws ConverterException, IOException {
+        EntityInstanceWrapper einstance = (EntityInstanceWrapper) ctx.get(PM_ENTITY_INSTANCE_WRAPPER);
+        Field field = (Field) ctx.get(PM_FIELD);
+        renderer.writeMessage((String) getValue(einstance, field));
+        return true;
+    }
 
     public Object build(PMContext ctx) throws ConverterException{
         throw new IgnoreConvertionException("");
@@ -23,7 +23,7 @@
     request.setAttribute("woperation", weak.getOperations().getOperation("list"));
     request.setAttribute("contents", listv);
 %>
-<bean:define id="fields" 	  name="weak" property="orderedFields" type="java.util.List" toScope="request"/><br/>
+<bean:define id="fields" 	  name="weak" property="layouts.list.fields" type="java.util.List" toScope="request"/><br/>
 <c:if test="${param.showbutton}">
     <a href="${es.context_path}/list.do?pmid=${param.weakid}" class='button edit' > &nbsp;&nbsp; <pm:message key="pm.struts.weak.converter.edit" /></a>
 </c:if>
@@ -33,9 +33,7 @@
             <thead>
                 <tr>
                     <logic:iterate id="field" name="fields" type="org.jpos.ee.pm.core.Field">
-                        <c:if test="${fn:contains(field.display,'list') or fn:contains(field.display,'all')}">
-                            <th scope="col" style="width:${field.width}px;" ><pm:field-name entity="${weak}" field="${field}" /></th>
-                        </c:if>
+                        <th scope="col" style="width:${field.width}px;" ><pm:field-name entity="${weak}" field="${field}" /></th>
                     </logic:iterate>
                 </tr>
             </thead>
@@ -43,11 +41,9 @@
                 <logic:iterate id="item" name="contents" >
                     <tr>
                         <logic:iterate id="field" name="fields" type="org.jpos.ee.pm.core.Field" indexId="j">
-                            <c:if test="${fn:contains(field.display,'list') or fn:contains(field.display,'all')}">
-                                <td align="text-align:${field.align};">
-                                    <pm:converted-item operation="${woperation}" entity="${weak}" item="${item}" field="${field}" />
-                                </td>
-                            </c:if>
+                            <td align="text-align:${field.align};">
+                                <pm:converted-item operation="${woperation}" entity="${weak}" item="${item}" field="${field}" />
+                            </td>
                         </logic:iterate>
                     </tr>
                 </logic:iterate>
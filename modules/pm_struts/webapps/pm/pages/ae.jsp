@@ -31,13 +31,11 @@
 		<div class="content">
 			<table id="box-table-a">
 				<tbody id="list_body" >
-					<logic:iterate id="field" name="entity" property="orderedFields" type="org.jpos.ee.pm.core.Field">
-					<c:if test="${fn:contains(field.display,ctx.operation.id) or fn:contains(field.display,'all')}">
-						<tr>
-							<th scope="row" width="175px"><div><label for="object.${field.id}"><pm:field-name entity="${entity}" field="${field}" /></label></div></th>
-							<td><div id="f_${field.id}_div"><pm:converted-item operation="${ctx.operation}" entity="${entity}" item="${entity_instance}" field="${field}" /></div></td>
-						</tr>
-					</c:if>
+					<logic:iterate id="field" collection="${entity.layouts[ctx.operation.id].fields}" type="org.jpos.ee.pm.core.Field">
+					<tr>
+						<th scope="row" width="175px"><div><label for="object.${field.id}"><pm:field-name entity="${entity}" field="${field}" /></label></div></th>
+						<td><div id="f_${field.id}_div"><pm:converted-item operation="${ctx.operation}" entity="${entity}" item="${entity_instance}" field="${field}" /></div></td>
+					</tr>
 					</logic:iterate>
 				</tbody>
 				<tfoot>
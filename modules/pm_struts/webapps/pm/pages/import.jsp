@@ -0,0 +1,77 @@
+<%--
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2010 Alejandro P. Revilla
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+--%>
+<%@include file="../inc/inc-full.jsp" %>
+<bean:define id="e_container" name="ctx" property="entityContainer" />
+<pm:page title="titles.import">
+    <div id="import" class="boxed">
+        <pm:pmtitle entity="${entity}" operation="${ctx.operation}" />
+        <html:form action="/${ctx.operation.id}.do?pmid=${pmid}" enctype="multipart/form-data">
+            <fieldset>
+                <pm:operations labels="true" operations="${ctx.map.operations.operations}"/>
+                <div id="navigation_bar">
+                    <pm:navigation container="${e_container.owner}"  />
+                </div>
+                <div class="content">
+                    <table id="box-table-a">
+                        <tbody>
+                            <tr>
+                                <th scope="row" width="175px"><div><label for="import_file"><pm:message key="pm.struts.import.file"/></label></div></th>
+                                <td><html:file property="file" styleId="import_file"/></td>
+                            </tr>
+                        </tbody>
+                        <tfoot>
+                            <tr><td colspan="2"><html:errors/>&nbsp;</td></tr>
+                        </tfoot>
+                    </table>
+                    <html:submit styleId="${entity.id}_submit"><pm:message key="pm.struts.form.submit"/></html:submit>
+                </div>
+            </fieldset>
+        </html:form>
+        <c:set var="report" value="${ctx.map.PM_IMPORT_REPORT}" />
+        <c:if test="${not empty report}">
+            <div id="import_report" class="content">
+                <p><pm:message key="pm.struts.import.summary" arg0="${report.rows}" arg1="${report.imported}" arg2="${report.rejected}" /></p>
+                <c:if test="${report.rejected > 0}">
+                    <table id="box-table-a">
+                        <thead>
+                            <tr>
+                                <th scope="col"><pm:message key="pm.struts.import.line"/></th>
+                                <th scope="col"><pm:message key="pm.struts.import.row"/></th>
+                                <th scope="col"><pm:message key="pm.struts.import.reason"/></th>
+                            </tr>
+                        </thead>
+                        <tbody>
+                            <c:forEach var="rejection" items="${report.rejections}">
+                                <tr>
+                                    <td>${rejection.line}</td>
+                                    <td><c:forEach var="value" items="${rejection.values}" varStatus="s"><c:if test="${not s.first}">, </c:if><c:out value="${value}"/></c:forEach></td>
+                                    <td><c:forEach var="m" items="${rejection.messages}"><div><c:if test="${m.key != 'entity'}"><c:out value="${m.key}"/>: </c:if><pm:message key="${m.message}" arg0="${fn:escapeXml(m.arg0)}" /></div></c:forEach></td>
+                                </tr>
+                            </c:forEach>
+                        </tbody>
+                        <c:if test="${report.truncated}">
+                            <tfoot>
+                                <tr><td colspan="3"><pm:message key="pm.struts.import.truncated" arg0="${fn:length(report.rejections)}" /></td></tr>
+                            </tfoot>
+                        </c:if>
+                    </table>
+                </c:if>
+            </div>
+        </c:if>
+    </div>
+</pm:page>
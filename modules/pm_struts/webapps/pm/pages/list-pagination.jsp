@@ -35,7 +35,14 @@
                 <html:option value="100"/>
             </html:select> <pm:message key="pm.struts.list.of" />
             <c:if test="${PMLIST.total != null}">${PMLIST.total}</c:if>
-            <c:if test="${PMLIST.total == null}">? &nbsp;</c:if>| &nbsp;&nbsp;&nbsp;&nbsp;
+            <c:if test="${PMLIST.total == null}"><span id="list_total">?</span> &nbsp;</c:if>| &nbsp;&nbsp;&nbsp;&nbsp;
+            <c:if test="${PMLIST.countPending}">
+                <script type="text/javascript">
+                    $.get("count.do", {pmid: "${pmid}"}, function(total){
+                        $("#list_total").text(total);
+                    });
+                </script>
+            </c:if>
 
             <c:if test="${PMLIST.page > 1}">
                 <a href="javascript:paginate('${PMLIST.page-1}')">&laquo; <pm:message key="pm.struts.list.prev"/></a> |
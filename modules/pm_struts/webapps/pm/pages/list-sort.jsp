@@ -19,10 +19,8 @@
 <div id="sort_page" class="jqmWindow">
     <bean:message key='list.sort.field' /> <br/>
     <html:select property="order" onchange="this.form.submit();" value="${PMLIST.order}">
-        <logic:iterate id="field" name="entity" property="orderedFields" type="org.jpos.ee.pm.core.Field">
-            <c:if test="${fn:contains(field.display,'sort') or fn:contains(field.display,'all')}">
-                <html:option value="${field.id}"><pm:field-name entity='${entity}' field='${field}' /></html:option>
-            </c:if>
+        <logic:iterate id="field" name="entity" property="layouts.sort.fields" type="org.jpos.ee.pm.core.Field">
+            <html:option value="${field.id}"><pm:field-name entity='${entity}' field='${field}' /></html:option>
         </logic:iterate>
     </html:select>
     <html:select property="desc" onchange="this.form.submit();" value="${PMLIST.desc}">
@@ -17,8 +17,6 @@
 --%>
 <%@include file="../inc/inc-full.jsp" %>
 <bean:define id="pmlist" name="ctx" property="entityContainer.list" toScope="request"  type="org.jpos.ee.pm.core.PaginatedList"/>
-<bean:define id="c" name="pmlist" property="listTotalDigits" type="java.lang.Integer" />
-<bean:define id="has_selected" name="PMLIST" property="hasSelectedScope" type="java.lang.Boolean" />
 <bean:define id="messages" name="org.apache.struts.action.MESSAGE" type="org.apache.struts.util.MessageResources" scope="application"/>
 <script type="text/javascript">
     function selectItem(i){
@@ -29,75 +27,23 @@
     <thead>
         <tr>
             <th scope="col" style="width:${pmlist.operationColWidth}">&nbsp;</th>
-            <logic:iterate id="field" name="entity" property="orderedFields" type="org.jpos.ee.pm.core.Field">
-                <c:if test="${fn:contains(field.display,operation.id) or fn:contains(field.display,'all')}">
-                    <bean:define id="w" value="<%=(field.getWidth().compareTo("")!=0)?"style='width:"+field.getWidth()+"px;'":"" %>"></bean:define>
-                    <th scope="col" ${w} ><pm:field-name entity="${entity}" field="${field}" /></th>
-                </c:if>
+            <logic:iterate id="field" collection="${entity.layouts[operation.id].fields}" type="org.jpos.ee.pm.core.Field">
+                <bean:define id="w" value="<%=(field.getWidth().compareTo("")!=0)?"style='width:"+field.getWidth()+"px;'":"" %>"></bean:define>
+                <th scope="col" ${w} ><pm:field-name entity="${entity}" field="${field}" /></th>
             </logic:iterate>
         </tr>
     </thead>
     <tbody id="list_body" >
-        <bean:define id="contents" name="contents" type="org.jpos.util.DisplacedList" />
-        <logic:iterate id="item" name="contents" >
-            <%
-            Entity entity = (Entity) request.getAttribute("entity");
-            Integer i = contents.indexOf(item);
-            request.setAttribute("i",i);
-            Highlight h = entity.getHighlight(null,item);
-            if(h!=null) request.setAttribute("pm_hl_class","pm_hl_"+entity.getHighlights().indexOf(h));
-            %>
-            <tr class="${pm_hl_class}">
-                <%
-                    request.removeAttribute("pm_hl_class");
-                %>
-                <td style="color:gray; white-space: nowrap;">
-                    <logic:equal name="has_selected" value="true">
-                        <bean:define id="checked" value="<%=(ctx.getEntityContainer().getSelectedIndexes().contains(i))?"checked":"" %>" />
-                        <input type="checkbox" id="selected_item" value="${i}" onchange="selectItem(this.value);" ${checked} />
-                    </logic:equal>
-                    <c:if test="${pmlist.showRowNumber}">
-                        <%= String.format("[%0"+c+"d]", i) %>
-                    </c:if>
-                    &nbsp;
-                    <span style="white-space: nowrap;" class="operationspopup" id="g_${i}">
-                        <logic:iterate id="itemOperation" indexId="j" name="ctx" property="map.operations.itemOperations.operations" type="org.jpos.ee.pm.core.Operation">
-                            <logic:present name="itemOperation" property="url">
-                                <bean:define id="furl" value="${itemOperation.url}" />
-                            </logic:present>
-                            <logic:notPresent name="itemOperation" property="url">
-                                <bean:define id="furl" value="${es.context_path}/${itemOperation.id}.do?pmid=${entity.id}&item=${i}" />
-                            </logic:notPresent>
-                            <a class="confirmable_${itemOperation.confirm}" href="${furl}" id="operation${itemOperation.id}" title="<%=messages.getMessage("operation."+itemOperation.getId())%>" ${onclick}><img src="${es.context_path}/templates/${pm.template}/img/${itemOperation.id}.gif" alt="${itemOperation.id}" /></a>
-                        </logic:iterate> &nbsp;
-                    </span>
-                </td>
-                <logic:iterate id="field" name="entity" property="orderedFields" type="org.jpos.ee.pm.core.Field">
-                    <c:if test="${fn:contains(field.display,operation.id) or fn:contains(field.display,'all')}">
-                        <%
-                           Highlight h2 = entity.getHighlight(field, item);
-                           if(h2!=null) request.setAttribute("pm_hl_class2","pm_hl_"+entity.getHighlights().indexOf(h2));
-                        %>
-                        <td class=" ${pm_hl_class2}" align="${field.align}">
-                            <pm:converted-item operation="${operation}" entity="${entity}" item="${item}" field="${field}" />
-                        </td>
-                        <%
-                           h2 = null;
-                           request.removeAttribute("pm_hl_class2");
-                        %>
-                    </c:if>
-                </logic:iterate>
-            </tr>
-        </logic:iterate>
+        <%
+            new ListRenderer(pageContext, ctx).renderRows((Entity) request.getAttribute("entity"), (Operation) request.getAttribute("operation"), pmlist);
+        %>
     </tbody>
     <tfoot>
         <logic:equal name="PMLIST" property="searchable" value="true" >
             <tr>
                 <th><input type="hidden" name="search" class="search_init" /></th>
-                    <logic:iterate id="field" name="entity" property="orderedFields" type="org.jpos.ee.pm.core.Field">
-                        <c:if test="${fn:contains(field.display,operation.id) or fn:contains(field.display,'all')}">
+                    <logic:iterate id="field" collection="${entity.layouts[operation.id].fields}" type="org.jpos.ee.pm.core.Field">
                         <th><input type="text" name="search_<pm:field-name entity="${entity}" field="${field}" />" value="<bean:message key="list.input.search"/><pm:field-name entity="${entity}" field="${field}" />" class="search_init" /></th>
-                        </c:if>
                     </logic:iterate>
             </tr>
         </logic:equal>
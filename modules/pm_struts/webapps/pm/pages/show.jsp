@@ -28,13 +28,11 @@
         <div class="content">
             <table id="box-table-a">
                 <tbody id="list_body" >
-                    <logic:iterate id="field" name="entity" property="orderedFields" type="org.jpos.ee.pm.core.Field">
-                        <c:if test="${fn:contains(field.display,'show') or fn:contains(field.display,'all')}">
-                            <tr>
-                                <th scope="row" width="175px"><pm:field-name entity="${entity}" field="${field}" /></th>
-                                <td><pm:converted-item operation="${ctx.operation}" entity="${entity}" item="${ctx.selected.instance}" field="${field}" /></td>
-                            </tr>
-                        </c:if>
+                    <logic:iterate id="field" name="entity" property="layouts.show.fields" type="org.jpos.ee.pm.core.Field">
+                        <tr>
+                            <th scope="row" width="175px"><pm:field-name entity="${entity}" field="${field}" /></th>
+                            <td><pm:converted-item operation="${ctx.operation}" entity="${entity}" item="${ctx.selected.instance}" field="${field}" /></td>
+                        </tr>
                     </logic:iterate>
                 </tbody>
                 <tfoot>